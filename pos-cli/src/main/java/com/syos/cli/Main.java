@@ -1,6 +1,10 @@
 package com.syos.cli;
 
+import com.syos.application.services.ExpirySweepScheduler;
+import com.syos.cli.factories.ServiceFactory;
+import com.syos.infrastructure.config.DatabaseConfig;
 import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.gateways.ItemCatalogReplica;
 import com.syos.cli.ui.cli.CLIApplication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,17 +24,37 @@ public class Main {
             DatabaseConnectionPool.getInstance();
             logger.info("Database connection pool initialized");
 
+            // Expire overdue stock now and daily at the configured time
+            ExpirySweepScheduler expirySweep = null;
+            DatabaseConfig config = DatabaseConfig.getInstance();
+            if (config.isExpirySweepEnabled()) {
+                expirySweep = new ExpirySweepScheduler(ServiceFactory.getInstance().getInventoryService(),
+                        config.getExpirySweepTime(),
+                        result -> logger.info("Expiry sweep: {} {}", result, result.getExpiredCodes()),
+                        e -> logger.error("Expiry sweep failed", e));
+                expirySweep.start();
+            }
+
             // Start CLI application
             CLIApplication app = new CLIApplication();
             app.start();
 
+            // Stop background work before the pool goes away
+            if (expirySweep != null) {
+                expirySweep.shutdown();
+            }
+            ItemCatalogReplica.getInstance().shutdown();
+
+            // Flush bills waiting for group commit and close the bill number connection
+            ServiceFactory.getInstance().getSalesService().shutdown();
+
         } catch (Exception e) {
             logger.error("Failed to start CLI application", e);
             System.err.println("Fatal error: " + e.getMessage());
             System.exit(1);
         } finally {
             // Shutdown connection pool on exit
-            DatabaseConnectionPool.getInstance().shutdown();
+            DatabaseConnectionPool.shutdownAll();
             logger.info("Application shutdown complete");
         }
     }
@@ -0,0 +1,50 @@
+package com.syos.cli.commands.reports;
+
+import com.syos.application.interfaces.Command;
+import com.syos.application.services.ReportService;
+import com.syos.cli.ui.cli.InputReader;
+import com.syos.cli.ui.presenters.ReportPresenter;
+
+/**
+ * Command to recompute the daily sales rollup from the bill history
+ * Needed once after upgrading a database that already holds bills, or after
+ * bills have been changed directly in the database
+ */
+public class RebuildSalesRollupCommand implements Command {
+    private final ReportService reportService;
+    private final ReportPresenter presenter;
+    private final InputReader inputReader;
+
+    public RebuildSalesRollupCommand(ReportService reportService,
+                                     ReportPresenter presenter,
+                                     InputReader inputReader) {
+        this.reportService = reportService;
+        this.presenter = presenter;
+        this.inputReader = inputReader;
+    }
+
+    @Override
+    public void execute() {
+        try {
+            presenter.showWarning("Sales saved while the rebuild runs may be missed from today's totals.");
+            if (!inputReader.readBoolean("Rebuild the daily sales rollup from all bills?")) {
+                return;
+            }
+
+            presenter.showProgress("Rebuilding daily sales rollup");
+            long start = System.nanoTime();
+            int rows = reportService.rebuildSalesRollup();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            presenter.showProgressComplete();
+
+            presenter.showSuccess("Rebuilt " + rows + " item-day rows in " + millis + "ms");
+        } catch (Exception e) {
+            presenter.showError("Failed to rebuild sales rollup: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Rebuild Sales Rollup";
+    }
+}
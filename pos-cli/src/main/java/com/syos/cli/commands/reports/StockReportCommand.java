@@ -1,6 +1,7 @@
 package com.syos.cli.commands.reports;
 
 import com.syos.application.interfaces.Command;
+import com.syos.application.reports.AbstractReport;
 import com.syos.application.services.ReportService;
 import com.syos.application.services.InventoryService;
 import com.syos.cli.ui.presenters.ReportPresenter;
@@ -10,11 +11,13 @@ import com.syos.domain.entities.Item;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.io.File;
+import java.io.Writer;
 import java.awt.Desktop;
 
 /**
@@ -27,7 +30,7 @@ public class StockReportCommand implements Command {
     private final ReportPresenter presenter;
     private final InventoryPresenter inventoryPresenter;
     private final InputReader inputReader;
-    private String lastGeneratedReport;
+    private AbstractReport lastGeneratedReport;
 
     public StockReportCommand(ReportService reportService,
                               InventoryService inventoryService,
@@ -47,7 +50,7 @@ public class StockReportCommand implements Command {
             presenter.showInfo("Generating Stock Report...");
 
             // Generate the main report
-            lastGeneratedReport = reportService.generateStockReport();
+            lastGeneratedReport = reportService.buildStockReport();
             presenter.showReport(lastGeneratedReport);
 
             // Offer additional options
@@ -290,14 +293,15 @@ public class StockReportCommand implements Command {
 
             presenter.showInfo("Exporting to " + fullPath + "...");
 
-            try (FileWriter writer = new FileWriter(file)) {
+            // Written straight through a buffer, so the report is never held as one string
+            try (Writer writer = new BufferedWriter(new FileWriter(file))) {
                 writer.write("SYOS STOCK REPORT\n");
                 writer.write("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "\n");
                 writer.write("=".repeat(80) + "\n\n");
 
                 // Write the main report
                 if (lastGeneratedReport != null) {
-                    writer.write(lastGeneratedReport);
+                    lastGeneratedReport.writeReport(writer);
                     writer.write("\n\n");
                 }
 
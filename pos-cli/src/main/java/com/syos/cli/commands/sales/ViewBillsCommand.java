@@ -7,9 +7,13 @@ import com.syos.cli.ui.cli.InputReader;
 import com.syos.domain.entities.Bill;
 import com.syos.application.visitors.BillPrinter;
 import com.syos.application.visitors.BillStatisticsVisitor;
+import com.syos.infrastructure.persistence.gateways.BillGateway;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Command to view bills/transactions
@@ -20,6 +24,7 @@ public class ViewBillsCommand implements Command {
     private final SalesPresenter presenter;
     private final InputReader inputReader;
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int PAGE_SIZE = 20;
 
     public ViewBillsCommand(SalesService salesService, SalesPresenter salesPresenter) {
         this.salesService = salesService;
@@ -73,20 +78,38 @@ public class ViewBillsCommand implements Command {
     private void viewAllBills() {
         presenter.showInfo("Retrieving all bills from the system...");
 
-        List<Bill> bills = salesService.getAllBills();
+        // Bills come a page at a time, most recent first
+        BillGateway.Page page = salesService.getBillsPage(null, PAGE_SIZE);
 
-        if (bills.isEmpty()) {
+        if (page.getBills().isEmpty()) {
             presenter.showInfo("No bills found in the system.");
             return;
         }
 
-        // Sort bills by date (most recent first) if needed
-        bills.sort((b1, b2) -> b2.getBillDate().compareTo(b1.getBillDate()));
+        int pageNumber = 1;
+        while (true) {
+            printBillTable(page.getBills(), "All Bills (page " + pageNumber + ")");
+            if (!page.hasNext() || !inputReader.readBoolean("Show next page?")) {
+                break;
+            }
+            page = salesService.getBillsPage(page.getNext(), PAGE_SIZE);
+            pageNumber++;
+        }
 
-        displayBills(bills, "All Bills");
+        // Statistics and daily summary cover the whole history, streamed bill by bill;
+        // statistics are gathered a batch at a time on other cores while the rows are read
+        StatisticsBatcher statistics = new StatisticsBatcher();
+        java.util.Map<LocalDate, Integer> dailyCounts = new java.util.HashMap<>();
+        java.util.Map<LocalDate, Double> dailyTotals = new java.util.HashMap<>();
+        salesService.forEachBill(bill -> {
+            statistics.accept(bill);
+            LocalDate date = bill.getBillDate().toLocalDate();
+            dailyCounts.merge(date, 1, Integer::sum);
+            dailyTotals.merge(date, bill.getFinalAmount().getValue().doubleValue(), Double::sum);
+        });
 
-        // Show additional summary
-        showBillsSummaryByDate(bills);
+        printBillStatistics(statistics.finish());
+        printDailySummary(dailyCounts, dailyTotals);
     }
 
     private void viewTodaysBills() {
@@ -116,6 +139,13 @@ public class ViewBillsCommand implements Command {
             return;
         }
 
+        printBillTable(bills, title);
+
+        // Show statistics
+        showBillStatistics(bills);
+    }
+
+    private void printBillTable(List<Bill> bills, String title) {
         System.out.println("\n" + "=".repeat(100));
         System.out.println(title);
         System.out.println("=".repeat(100));
@@ -136,19 +166,17 @@ public class ViewBillsCommand implements Command {
             ));
         }
         System.out.println("-".repeat(100));
-
-        // Show statistics
-        showBillStatistics(bills);
     }
 
     private void showBillStatistics(List<Bill> bills) {
-        BillStatisticsVisitor statsVisitor = new BillStatisticsVisitor();
+        // Visit all bills to gather statistics, split across cores
+        BillStatisticsVisitor statsVisitor = bills.parallelStream()
+                .collect(BillStatisticsVisitor.collector());
 
-        // Visit all bills to gather statistics
-        for (Bill bill : bills) {
-            bill.accept(statsVisitor);
-        }
+        printBillStatistics(statsVisitor);
+    }
 
+    private void printBillStatistics(BillStatisticsVisitor statsVisitor) {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("Sales Statistics");
         System.out.println("=".repeat(50));
@@ -160,32 +188,19 @@ public class ViewBillsCommand implements Command {
         System.out.println("=".repeat(50));
     }
 
-    private void showBillsSummaryByDate(List<Bill> bills) {
+    private void printDailySummary(java.util.Map<LocalDate, Integer> dailyCounts,
+                                   java.util.Map<LocalDate, Double> dailyTotals) {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("Daily Summary");
         System.out.println("=".repeat(50));
 
-        // Group bills by date
-        java.util.Map<LocalDate, List<Bill>> billsByDate = new java.util.HashMap<>();
-        for (Bill bill : bills) {
-            LocalDate date = bill.getBillDate().toLocalDate();
-            billsByDate.computeIfAbsent(date, k -> new java.util.ArrayList<>()).add(bill);
-        }
-
         // Sort dates and display summary
-        billsByDate.keySet().stream()
+        dailyCounts.keySet().stream()
                 .sorted(java.util.Comparator.reverseOrder())
-                .forEach(date -> {
-                    List<Bill> dailyBills = billsByDate.get(date);
-                    double dailyTotal = dailyBills.stream()
-                            .mapToDouble(b -> b.getFinalAmount().getValue().doubleValue())
-                            .sum();
-
-                    System.out.printf("%s: %d bills, Total: $%.2f%n",
-                            date.format(DATE_FORMAT),
-                            dailyBills.size(),
-                            dailyTotal);
-                });
+                .forEach(date -> System.out.printf("%s: %d bills, Total: $%.2f%n",
+                        date.format(DATE_FORMAT),
+                        dailyCounts.get(date),
+                        dailyTotals.get(date)));
 
         System.out.println("=".repeat(50));
     }
@@ -242,10 +257,12 @@ public class ViewBillsCommand implements Command {
 
         presenter.showInfo("Searching for bills containing: " + searchTerm);
 
-        List<Bill> allBills = salesService.getAllBills();
-        List<Bill> matchingBills = allBills.stream()
-                .filter(bill -> bill.getBillNumber().toString().contains(searchTerm))
-                .collect(java.util.stream.Collectors.toList());
+        List<Bill> matchingBills = new java.util.ArrayList<>();
+        salesService.forEachBill(bill -> {
+            if (bill.getBillNumber().toString().contains(searchTerm)) {
+                matchingBills.add(bill);
+            }
+        });
 
         if (matchingBills.isEmpty()) {
             presenter.showInfo("No bills found matching: " + searchTerm);
@@ -263,10 +280,12 @@ public class ViewBillsCommand implements Command {
 
         String type = choice == 1 ? "IN_STORE" : "ONLINE";
 
-        List<Bill> allBills = salesService.getAllBills();
-        List<Bill> filteredBills = allBills.stream()
-                .filter(bill -> bill.getTransactionType().name().equals(type))
-                .collect(java.util.stream.Collectors.toList());
+        List<Bill> filteredBills = new java.util.ArrayList<>();
+        salesService.forEachBill(bill -> {
+            if (bill.getTransactionType().name().equals(type)) {
+                filteredBills.add(bill);
+            }
+        });
 
         displayBills(filteredBills, type + " Transactions");
     }
@@ -275,4 +294,42 @@ public class ViewBillsCommand implements Command {
     public String getDescription() {
         return "View Bills and Transactions";
     }
-}
\ No newline at end of file
+
+    /**
+     * Hands streamed bills to the common fork/join pool in fixed-size batches and
+     * combines the partial statistics once the stream ends
+     */
+    private static final class StatisticsBatcher implements Consumer<Bill> {
+        private static final int BATCH_SIZE = 1000;
+
+        private final List<CompletableFuture<BillStatisticsVisitor>> partials = new ArrayList<>();
+        private List<Bill> batch = new ArrayList<>(BATCH_SIZE);
+
+        @Override
+        public void accept(Bill bill) {
+            batch.add(bill);
+            if (batch.size() == BATCH_SIZE) {
+                submit();
+            }
+        }
+
+        BillStatisticsVisitor finish() {
+            submit();
+            BillStatisticsVisitor statistics = new BillStatisticsVisitor();
+            for (CompletableFuture<BillStatisticsVisitor> partial : partials) {
+                statistics.combine(partial.join());
+            }
+            return statistics;
+        }
+
+        private void submit() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Bill> bills = batch;
+            partials.add(CompletableFuture.supplyAsync(() -> bills.stream()
+                    .collect(BillStatisticsVisitor.collector())));
+            batch = new ArrayList<>(BATCH_SIZE);
+        }
+    }
+}
@@ -76,6 +76,11 @@ public class CommandFactory {
                     serviceFactory.getReportService(),
                     presenterFactory.getReportPresenter()
             );
+            case "REBUILD_SALES_ROLLUP" -> new RebuildSalesRollupCommand(
+                    serviceFactory.getReportService(),
+                    presenterFactory.getReportPresenter(),
+                    inputReader
+            );
 
             // User Commands
             case "REGISTER_USER" -> new RegisterUserCommand(
@@ -77,6 +77,8 @@ public class MenuBuilder {
                 commandFactory.createCommand("RESHELVE_REPORT")));
         reportsMenu.add(new MenuItem("5", "Bill History",
                 commandFactory.createCommand("BILL_HISTORY")));
+        reportsMenu.add(new MenuItem("6", "Rebuild Sales Rollup",
+                commandFactory.createCommand("REBUILD_SALES_ROLLUP")));
         reportsMenu.add(new MenuItem("0", "Back to Main Menu",
                 commandFactory.createCommand("BACK")));
 
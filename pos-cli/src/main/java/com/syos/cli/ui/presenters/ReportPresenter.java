@@ -1,5 +1,12 @@
 package com.syos.cli.ui.presenters;
 
+import com.syos.application.reports.AbstractReport;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
 /**
  * Presenter for report-related UI operations
  * Handles the display of reports and report-related messages
@@ -14,6 +21,21 @@ public class ReportPresenter {
         System.out.println(report);
     }
 
+    /**
+     * Display a report, writing it to the console section by section
+     * @param report The report to render
+     */
+    public void showReport(AbstractReport report) {
+        Writer console = new OutputStreamWriter(System.out, Charset.defaultCharset());
+        try {
+            report.writeReport(console);
+            console.write(System.lineSeparator());
+            console.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Display an error message
      * @param message The error message to display
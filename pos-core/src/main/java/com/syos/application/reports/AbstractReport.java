@@ -1,42 +1,67 @@
 package com.syos.application.reports;
 
+import com.syos.shared.utils.TableFormatter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public abstract class AbstractReport {
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int WRITE_CHUNK = 8192;
+
+    // Horizontal rules, built once and shared by every report
+    protected static final String RULE = TableFormatter.rule('-', 80);
+    protected static final String DOUBLE_RULE = TableFormatter.rule('=', 80);
 
     // Template Method
     public final String generateReport() {
-        StringBuilder report = new StringBuilder();
+        StringWriter report = new StringWriter();
+        try {
+            writeReport(report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter never throws
+        }
+        return report.toString();
+    }
 
+    /**
+     * Streaming form of generateReport: writes each section to out as it is produced
+     * and flushes after each one, so a large report reaches the file or client
+     * without first being built as one string. The output is identical.
+     * The writer is flushed but not closed.
+     */
+    public final void writeReport(Writer out) throws IOException {
         // Step 1: Add header
-        report.append(generateHeader());
-        report.append("\n");
+        out.write(generateHeader());
+        out.write("\n");
 
         // Step 2: Add report metadata
-        report.append(generateMetadata());
-        report.append("\n");
+        out.write(generateMetadata());
+        out.write("\n");
+        out.flush();
 
         // Step 3: Add report body
-        report.append(generateBody());
-        report.append("\n");
+        writeBody(out);
+        out.write("\n");
+        out.flush();
 
         // Step 4: Add summary
-        report.append(generateSummary());
-        report.append("\n");
+        out.write(generateSummary());
+        out.write("\n");
 
         // Step 5: Add footer
-        report.append(generateFooter());
-
-        return report.toString();
+        out.write(generateFooter());
+        out.flush();
     }
 
     // Common implementation
     protected String generateHeader() {
-        return "=".repeat(80) + "\n" +
+        return DOUBLE_RULE + "\n" +
                 centerText(getReportTitle(), 80) + "\n" +
-                "=".repeat(80);
+                DOUBLE_RULE;
     }
 
     protected String generateMetadata() {
@@ -45,10 +70,45 @@ public abstract class AbstractReport {
     }
 
     protected String generateFooter() {
-        return "-".repeat(80) + "\n" +
+        return RULE + "\n" +
                 "End of Report";
     }
 
+    /**
+     * Write the body; reports with one line per item override this to write
+     * rows as they go instead of building generateBody's string
+     */
+    protected void writeBody(Writer out) throws IOException {
+        out.write(generateBody());
+    }
+
+    /**
+     * generateBody for reports that override writeBody
+     */
+    protected final String writeBodyToString() {
+        StringWriter body = new StringWriter();
+        try {
+            writeBody(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter never throws
+        }
+        return body.toString();
+    }
+
+    /**
+     * Pass the rows buffered so far to out once they make up a chunk worth writing
+     */
+    protected static void writeIfFull(StringBuilder buffer, Writer out) throws IOException {
+        if (buffer.length() >= WRITE_CHUNK) {
+            writeAll(buffer, out);
+        }
+    }
+
+    protected static void writeAll(StringBuilder buffer, Writer out) throws IOException {
+        out.append(buffer);
+        buffer.setLength(0);
+    }
+
     // Abstract methods to be implemented by subclasses
     protected abstract String getReportTitle();
     protected abstract String getReportType();
@@ -3,19 +3,44 @@ package com.syos.application.reports;
 import com.syos.domain.entities.Bill;
 import com.syos.domain.entities.BillItem;
 import com.syos.domain.valueobjects.Money;
-import java.math.BigDecimal;
+import com.syos.domain.valueobjects.MoneyAccumulator;
+import com.syos.infrastructure.persistence.gateways.BillGateway;
+import com.syos.shared.utils.TableFormatter;
 import java.time.LocalDate;
 import java.util.*;
 
 public class DailySalesReport extends AbstractReport {
+    private static final TableFormatter TABLE = new TableFormatter.Builder()
+            .left("Item Code", 15)
+            .left("Item Name", 30)
+            .right("Quantity", 10)
+            .right("Total Revenue", 15)
+            .build();
+
     private final LocalDate date;
-    private final List<Bill> bills;
+    private final int totalTransactions;
     private final Map<String, SalesData> salesByItem;
 
     public DailySalesReport(LocalDate date, List<Bill> bills) {
         this.date = date;
-        this.bills = bills;
-        this.salesByItem = aggregateSales();
+        this.totalTransactions = bills.size();
+        this.salesByItem = aggregateSales(bills);
+    }
+
+    /**
+     * Build the report from totals already aggregated by the database
+     */
+    public DailySalesReport(LocalDate date, BillGateway.SalesSummary summary) {
+        this.date = date;
+        this.totalTransactions = summary.getTransactionCount();
+        this.salesByItem = new HashMap<>();
+        // Same insertion order as aggregateSales, so the HashMap iterates identically
+        for (BillGateway.ItemSales sales : summary.getItems()) {
+            salesByItem.computeIfAbsent(sales.getItemCode(), k -> new SalesData(
+                    sales.getItemCode(),
+                    sales.getItemName()
+            )).addSale(sales.getQuantity(), sales.getRevenue());
+        }
     }
 
     @Override
@@ -32,18 +57,18 @@ public class DailySalesReport extends AbstractReport {
     protected String generateBody() {
         StringBuilder body = new StringBuilder();
         body.append("\nSales Summary by Item:\n");
-        body.append("-".repeat(80)).append("\n");
-        body.append(String.format("%-15s %-30s %10s %15s%n",
-                "Item Code", "Item Name", "Quantity", "Total Revenue"));
-        body.append("-".repeat(80)).append("\n");
+        body.append(RULE).append("\n");
+        TABLE.appendHeader(body);
+        body.append(RULE).append("\n");
 
         for (Map.Entry<String, SalesData> entry : salesByItem.entrySet()) {
             SalesData data = entry.getValue();
-            body.append(String.format("%-15s %-30s %10d %15s%n",
-                    data.itemCode,
-                    data.itemName,
-                    data.totalQuantity,
-                    data.totalRevenue));
+            TABLE.row(body)
+                    .cell(data.itemCode)
+                    .cell(data.itemName)
+                    .cell(data.totalQuantity)
+                    .cell(data.totalRevenue.toMoney())
+                    .end();
         }
 
         return body.toString();
@@ -51,21 +76,21 @@ public class DailySalesReport extends AbstractReport {
 
     @Override
     protected String generateSummary() {
-        int totalTransactions = bills.size();
         int totalItemsSold = salesByItem.values().stream()
                 .mapToInt(data -> data.totalQuantity)
                 .sum();
-        Money totalRevenue = salesByItem.values().stream()
-                .map(data -> data.totalRevenue)
-                .reduce(new Money(BigDecimal.ZERO), Money::add);
+        MoneyAccumulator totalRevenue = new MoneyAccumulator();
+        for (SalesData data : salesByItem.values()) {
+            totalRevenue.add(data.totalRevenue);
+        }
 
         return "\nSummary:\n" +
                 "Total Transactions: " + totalTransactions + "\n" +
                 "Total Items Sold: " + totalItemsSold + "\n" +
-                "Total Revenue: " + totalRevenue + "\n";
+                "Total Revenue: " + totalRevenue.toMoney() + "\n";
     }
 
-    private Map<String, SalesData> aggregateSales() {
+    private static Map<String, SalesData> aggregateSales(List<Bill> bills) {
         Map<String, SalesData> aggregated = new HashMap<>();
 
         for (Bill bill : bills) {
@@ -85,18 +110,17 @@ public class DailySalesReport extends AbstractReport {
         final String itemCode;
         final String itemName;
         int totalQuantity;
-        Money totalRevenue;
+        final MoneyAccumulator totalRevenue = new MoneyAccumulator();
 
         SalesData(String itemCode, String itemName) {
             this.itemCode = itemCode;
             this.itemName = itemName;
             this.totalQuantity = 0;
-            this.totalRevenue = new Money(BigDecimal.ZERO);
         }
 
         void addSale(int quantity, Money revenue) {
             this.totalQuantity += quantity;
-            this.totalRevenue = this.totalRevenue.add(revenue);
+            this.totalRevenue.add(revenue);
         }
     }
 }
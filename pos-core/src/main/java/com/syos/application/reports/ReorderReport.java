@@ -1,9 +1,19 @@
 package com.syos.application.reports;
 
 import com.syos.domain.entities.Item;
+import com.syos.shared.utils.TableFormatter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 public class ReorderReport extends AbstractReport {
+    private static final TableFormatter TABLE = new TableFormatter.Builder()
+            .left("Code", 15)
+            .left("Name", 30)
+            .right("Current Stock", 15)
+            .right("Suggested Order", 15)
+            .build();
+
     private final List<Item> lowStockItems;
     private final int reorderThreshold;
 
@@ -24,30 +34,35 @@ public class ReorderReport extends AbstractReport {
 
     @Override
     protected String generateBody() {
-        StringBuilder body = new StringBuilder();
-        body.append("\nItems Below Reorder Level (").append(reorderThreshold).append("):\n");
-        body.append("-".repeat(80)).append("\n");
+        return writeBodyToString();
+    }
+
+    @Override
+    protected void writeBody(Writer out) throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("\nItems Below Reorder Level (").append(reorderThreshold).append("):\n");
+        buffer.append(RULE).append("\n");
 
         if (lowStockItems.isEmpty()) {
-            body.append("No items require reordering at this time.\n");
+            buffer.append("No items require reordering at this time.\n");
         } else {
-            body.append(String.format("%-15s %-30s %15s %15s%n",
-                    "Code", "Name", "Current Stock", "Suggested Order"));
-            body.append("-".repeat(80)).append("\n");
+            TABLE.appendHeader(buffer);
+            buffer.append(RULE).append("\n");
 
             for (Item item : lowStockItems) {
                 int currentStock = item.getQuantity().getValue();
                 int suggestedOrder = reorderThreshold * 2 - currentStock;
 
-                body.append(String.format("%-15s %-30s %15d %15d%n",
-                        item.getCode().getValue(),
-                        item.getName(),
-                        currentStock,
-                        suggestedOrder));
+                TABLE.row(buffer)
+                        .cell(item.getCode().getValue())
+                        .cell(item.getName())
+                        .cell(currentStock)
+                        .cell(suggestedOrder)
+                        .end();
+                writeIfFull(buffer, out);
             }
         }
-
-        return body.toString();
+        writeAll(buffer, out);
     }
 
     @Override
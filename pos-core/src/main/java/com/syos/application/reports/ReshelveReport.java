@@ -1,6 +1,7 @@
 package com.syos.application.reports;
 
 import com.syos.domain.entities.Item;
+import com.syos.shared.utils.TableFormatter;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -13,6 +14,15 @@ import java.util.stream.Collectors;
  * or items that need to be removed from shelves
  */
 public class ReshelveReport extends AbstractReport {
+    private static final TableFormatter TABLE = new TableFormatter.Builder()
+            .left("Code", 15)
+            .left("Name", 30)
+            .right("Quantity", 10)
+            .right("Expiry Date", 15)
+            .right("Days Left", 10)
+            .right("Action", 12)
+            .build();
+
     private final List<Item> expiringItems;
     private final LocalDate currentDate;
     private final int daysThreshold;
@@ -47,21 +57,21 @@ public class ReshelveReport extends AbstractReport {
         // Critical items (expiring today or tomorrow)
         if (itemsByUrgency.containsKey(ReshelveUrgency.CRITICAL)) {
             body.append("\n🚨 CRITICAL - Remove from shelf immediately:\n");
-            body.append("-".repeat(80)).append("\n");
+            body.append(RULE).append("\n");
             appendItemsTable(body, itemsByUrgency.get(ReshelveUrgency.CRITICAL));
         }
 
         // High priority items (expiring in 2-3 days)
         if (itemsByUrgency.containsKey(ReshelveUrgency.HIGH)) {
             body.append("\n⚠️  HIGH PRIORITY - Move to front of shelf:\n");
-            body.append("-".repeat(80)).append("\n");
+            body.append(RULE).append("\n");
             appendItemsTable(body, itemsByUrgency.get(ReshelveUrgency.HIGH));
         }
 
         // Medium priority items (expiring in 4-7 days)
         if (itemsByUrgency.containsKey(ReshelveUrgency.MEDIUM)) {
             body.append("\n📋 MEDIUM PRIORITY - Rotate stock:\n");
-            body.append("-".repeat(80)).append("\n");
+            body.append(RULE).append("\n");
             appendItemsTable(body, itemsByUrgency.get(ReshelveUrgency.MEDIUM));
         }
 
@@ -108,21 +118,21 @@ public class ReshelveReport extends AbstractReport {
     }
 
     private void appendItemsTable(StringBuilder body, List<Item> items) {
-        body.append(String.format("%-15s %-30s %10s %15s %10s %12s%n",
-                "Code", "Name", "Quantity", "Expiry Date", "Days Left", "Action"));
-        body.append("-".repeat(80)).append("\n");
+        TABLE.appendHeader(body);
+        body.append(RULE).append("\n");
 
         for (Item item : items) {
             long daysUntilExpiry = ChronoUnit.DAYS.between(currentDate, item.getExpiryDate());
             String action = determineAction(daysUntilExpiry);
 
-            body.append(String.format("%-15s %-30s %10d %15s %10d %12s%n",
-                    item.getCode().getValue(),
-                    truncate(item.getName(), 30),
-                    item.getQuantity().getValue(),
-                    item.getExpiryDate(),
-                    daysUntilExpiry,
-                    action));
+            TABLE.row(body)
+                    .cell(item.getCode().getValue())
+                    .cell(truncate(item.getName(), 30))
+                    .cell(item.getQuantity().getValue())
+                    .cell(item.getExpiryDate())
+                    .cell(daysUntilExpiry)
+                    .cell(action)
+                    .end();
         }
         body.append("\n");
     }
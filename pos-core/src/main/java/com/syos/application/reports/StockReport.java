@@ -1,11 +1,22 @@
 package com.syos.application.reports;
 
 import com.syos.domain.entities.Item;
+import com.syos.shared.utils.TableFormatter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 public class StockReport extends AbstractReport {
+    private static final TableFormatter TABLE = new TableFormatter.Builder()
+            .left("Code", 15)
+            .left("Name", 30)
+            .right("Quantity", 10)
+            .right("Purchase Date", 15)
+            .right("Expiry Date", 15)
+            .build();
+
     private final List<Item> items;
 
     public StockReport(List<Item> items) {
@@ -24,30 +35,34 @@ public class StockReport extends AbstractReport {
 
     @Override
     protected String generateBody() {
-        StringBuilder body = new StringBuilder();
+        return writeBodyToString();
+    }
 
+    @Override
+    protected void writeBody(Writer out) throws IOException {
         // Group items by state
         Map<String, List<Item>> itemsByState = items.stream()
                 .collect(Collectors.groupingBy(item -> item.getState().getStateName()));
 
+        StringBuilder buffer = new StringBuilder();
         for (Map.Entry<String, List<Item>> entry : itemsByState.entrySet()) {
-            body.append("\n").append(entry.getKey()).append(" Items:\n");
-            body.append("-".repeat(80)).append("\n");
-            body.append(String.format("%-15s %-30s %10s %15s %15s%n",
-                    "Code", "Name", "Quantity", "Purchase Date", "Expiry Date"));
-            body.append("-".repeat(80)).append("\n");
+            buffer.append("\n").append(entry.getKey()).append(" Items:\n");
+            buffer.append(RULE).append("\n");
+            TABLE.appendHeader(buffer);
+            buffer.append(RULE).append("\n");
 
             for (Item item : entry.getValue()) {
-                body.append(String.format("%-15s %-30s %10d %15s %15s%n",
-                        item.getCode().getValue(),
-                        item.getName(),
-                        item.getQuantity().getValue(),
-                        item.getPurchaseDate(),
-                        item.getExpiryDate() != null ? item.getExpiryDate() : "N/A"));
+                TABLE.row(buffer)
+                        .cell(item.getCode().getValue())
+                        .cell(item.getName())
+                        .cell(item.getQuantity().getValue())
+                        .cell(item.getPurchaseDate())
+                        .cell(item.getExpiryDate() != null ? item.getExpiryDate() : "N/A")
+                        .end();
+                writeIfFull(buffer, out);
             }
         }
-
-        return body.toString();
+        writeAll(buffer, out);
     }
 
     @Override
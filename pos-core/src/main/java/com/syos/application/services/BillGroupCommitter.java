@@ -0,0 +1,189 @@
+package com.syos.application.services;
+
+import com.syos.domain.entities.Bill;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
+import com.syos.shared.utils.Histogram;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Group commit for bill saves.
+ * Callers queue bills and wait on a future. A single collector thread takes the
+ * first pending bill, waits up to maxWaitMillis for up to maxBatch bills in total,
+ * and saves the whole group in one transaction so they share a single commit.
+ *
+ * Each bill runs behind its own savepoint, so a bill that fails (for example on
+ * insufficient stock) is rolled back alone and its neighbours still commit. A bill
+ * that fails in the database (deadlock, lock wait timeout, lost connection) may have
+ * taken the whole transaction down with it, so such a failure abandons the group. If
+ * the group transaction fails, every bill in it is retried in its own transaction.
+ */
+class BillGroupCommitter {
+    private static final long IDLE_POLL_MILLIS = 200; // How often an idle collector checks for shutdown
+
+    private final Function<Bill, Integer> saveWork;
+    private final ConnectionManager connectionManager;
+    private final long maxWaitNanos;
+    private final int maxBatch;
+    private final BlockingQueue<PendingBill> queue = new LinkedBlockingQueue<>();
+    private final Histogram batchSizes = new Histogram();
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    /**
+     * @param saveWork Saves one bill and returns its bill number; must join the current transaction
+     */
+    BillGroupCommitter(Function<Bill, Integer> saveWork, ConnectionManager connectionManager,
+                       long maxWaitMillis, int maxBatch) {
+        this.saveWork = saveWork;
+        this.connectionManager = connectionManager;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.collector = new Thread(this::collectLoop, "bill-group-commit");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    /**
+     * Queue a bill for the next group
+     * @return Completes with the bill number, or exceptionally with the bill's own failure
+     */
+    CompletableFuture<Integer> submit(Bill bill) {
+        PendingBill pending = new PendingBill(bill);
+        if (!running) {
+            pending.result.completeExceptionally(new IllegalStateException("Group commit is shut down"));
+            return pending.result;
+        }
+        queue.add(pending);
+        return pending.result;
+    }
+
+    /**
+     * @return Distribution of bills per committed group
+     */
+    Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * Stop collecting; bills already queued are still saved
+     */
+    void shutdown() {
+        running = false;
+        try {
+            collector.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Bills queued after the collector stopped
+        PendingBill pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("Group commit is shut down"));
+        }
+    }
+
+    private void collectLoop() {
+        while (running || !queue.isEmpty()) {
+            List<PendingBill> batch = new ArrayList<>(maxBatch);
+            try {
+                PendingBill first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingBill next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Commit what was collected; the loop then drains the queue and stops
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                commitGroup(batch);
+            }
+        }
+    }
+
+    private void commitGroup(List<PendingBill> batch) {
+        batchSizes.record(batch.size());
+        try {
+            connectionManager.executeInTransaction(() -> {
+                for (PendingBill pending : batch) {
+                    try {
+                        pending.billNumber = connectionManager.executeInSavepoint(() -> saveWork.apply(pending.bill));
+                    } catch (RuntimeException e) {
+                        if (isDatabaseFailure(e)) {
+                            // The server may already have rolled back the bills saved before this one
+                            throw e;
+                        }
+                        pending.failure = e;
+                    }
+                }
+            });
+        } catch (RuntimeException groupFailure) {
+            // Commit, connection or a bill's database work failed: nothing in the group
+            // was saved, so retry one by one
+            for (PendingBill pending : batch) {
+                saveAlone(pending);
+            }
+            return;
+        }
+
+        for (PendingBill pending : batch) {
+            if (pending.failure != null) {
+                pending.result.completeExceptionally(pending.failure);
+            } else {
+                pending.result.complete(pending.billNumber);
+            }
+        }
+    }
+
+    /**
+     * @return true if the failure came from the database rather than from the bill itself
+     */
+    private static boolean isDatabaseFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void saveAlone(PendingBill pending) {
+        try {
+            int billNumber = connectionManager.executeInTransaction(() -> saveWork.apply(pending.bill));
+            pending.result.complete(billNumber);
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingBill {
+        private final Bill bill;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+        private Integer billNumber;
+        private RuntimeException failure;
+
+        private PendingBill(Bill bill) {
+            this.bill = bill;
+        }
+    }
+}
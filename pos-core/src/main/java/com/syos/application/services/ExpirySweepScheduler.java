@@ -0,0 +1,78 @@
+package com.syos.application.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the inventory expiry sweep once at startup and then daily at a fixed local time.
+ * The next run is worked out from the clock after every sweep, so daylight saving
+ * changes do not make it drift. Several nodes may run it at once: the sweep locks
+ * the rows it expires, so the later nodes simply find nothing left to do.
+ */
+public class ExpirySweepScheduler {
+    private final InventoryService inventoryService;
+    private final LocalTime runAt;
+    private final Consumer<InventoryService.ExpirySweepResult> onResult;
+    private final Consumer<RuntimeException> onFailure;
+    private final ScheduledExecutorService executor;
+    private volatile boolean running;
+
+    /**
+     * @param onResult Receives each sweep's outcome, on the scheduler thread
+     * @param onFailure Receives a sweep's failure; the next run is still scheduled
+     */
+    public ExpirySweepScheduler(InventoryService inventoryService, LocalTime runAt,
+                                Consumer<InventoryService.ExpirySweepResult> onResult,
+                                Consumer<RuntimeException> onFailure) {
+        this.inventoryService = inventoryService;
+        this.runAt = runAt;
+        this.onResult = onResult;
+        this.onFailure = onFailure;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        running = true;
+        executor.execute(this::sweep);
+    }
+
+    public void shutdown() {
+        running = false;
+        executor.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            onResult.accept(inventoryService.checkAndUpdateExpiredItems());
+        } catch (RuntimeException e) {
+            onFailure.accept(e);
+        } finally {
+            if (running) {
+                try {
+                    executor.schedule(this::sweep, millisUntilNextRun(), TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Shut down while this sweep was running
+                }
+            }
+        }
+    }
+
+    private long millisUntilNextRun() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(runAt);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        return Duration.between(now, next).toMillis();
+    }
+}
@@ -3,107 +3,111 @@ package com.syos.application.services;
 import com.syos.domain.entities.*;
 import com.syos.domain.valueobjects.*;
 import com.syos.domain.exceptions.*;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
+import com.syos.infrastructure.persistence.gateways.ItemCatalogReplica;
 import com.syos.infrastructure.persistence.gateways.ItemGateway;
+import com.syos.shared.utils.StripedLock;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Application Service for Inventory Management
  * Orchestrates inventory-related use cases
  *
  * THREAD-SAFE: This service is designed for concurrent access in multi-threaded
- * environments. Critical methods that modify inventory are synchronized to
- * prevent race conditions when multiple users add or update stock simultaneously.
+ * environments. Stock changes are written as relative, guarded updates, so they
+ * stay correct alongside sales, which take no JVM locks, and the other
+ * application. Methods that modify inventory also lock the item codes they
+ * touch, so work on unrelated items runs in parallel.
  */
 public class InventoryService {
     private final ItemGateway itemGateway;
+    private final ItemCatalogReplica catalog;
+    private final ConnectionManager connectionManager;
+    private final ReportCache reportCache;
     private static final int REORDER_THRESHOLD = 50;
     private static final int EXPIRY_WARNING_DAYS = 7;
-    private final Object inventoryLock = new Object(); // Lock for inventory modifications
+    private static final int LOCK_STRIPES = 64;
+    private final StripedLock itemLocks = new StripedLock(LOCK_STRIPES); // Locks keyed by item code
+    private static final int QUERY_THREADS = 4;
+    private final ExecutorService queryPool = Executors.newFixedThreadPool(QUERY_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "inventory-query");
+        thread.setDaemon(true);
+        return thread;
+    }); // Runs independent read queries in parallel
 
     public InventoryService(ItemGateway itemGateway) {
         this.itemGateway = itemGateway;
+        this.catalog = ItemCatalogReplica.getInstance();
+        this.connectionManager = new ConnectionManager();
+        this.reportCache = ReportCache.getInstance();
     }
 
     /**
      * Add new stock to inventory
-     * THREAD-SAFE: Synchronized to prevent race conditions when multiple users
-     * add stock for the same item simultaneously.
+     * THREAD-SAFE: Existing items gain stock with a relative update, so sales made
+     * at the same time are not overwritten. The item code is also locked so two
+     * users adding the same new item do not both insert it.
      */
     public void addStock(String code, String name, BigDecimal price,
                          int quantity, LocalDate expiryDate) {
-        synchronized (inventoryLock) {
-            // Check if item already exists
-            Item existingItem = itemGateway.findByCode(code);
-
-            if (existingItem != null) {
-                // Update existing item quantity
-                int newQuantity = existingItem.getQuantity().getValue() + quantity;
-                Item updatedItem = new Item.Builder()
-                        .withCode(code)
-                        .withName(existingItem.getName())
-                        .withPrice(existingItem.getPrice().getValue())
-                        .withQuantity(newQuantity)
-                        .withExpiryDate(existingItem.getExpiryDate())
-                        .withState(existingItem.getState())
-                        .withPurchaseDate(existingItem.getPurchaseDate())
-                        .build();
+        changeInventory(() -> itemLocks.withLocks(() -> {
+            if (itemGateway.addQuantity(code, quantity)) {
+                return;
+            }
 
-                itemGateway.update(updatedItem);
-            } else {
-                // Create new item
-                Item newItem = new Item.Builder()
-                        .withCode(code)
-                        .withName(name)
-                        .withPrice(price)
-                        .withQuantity(quantity)
-                        .withExpiryDate(expiryDate)
-                        .withState(new InStoreState())
-                        .withPurchaseDate(LocalDate.now())
-                        .build();
+            // Create new item
+            Item newItem = new Item.Builder()
+                    .withCode(code)
+                    .withName(name)
+                    .withPrice(price)
+                    .withQuantity(quantity)
+                    .withExpiryDate(expiryDate)
+                    .withState(new InStoreState())
+                    .withPurchaseDate(LocalDate.now())
+                    .build();
 
-                itemGateway.insert(newItem);
-            }
-        }
+            itemGateway.insert(newItem);
+        }, code));
     }
 
     /**
      * Move items from store to shelf
-     * THREAD-SAFE: Synchronized to ensure atomic state transitions and prevent
-     * race conditions during shelf stock operations.
+     * THREAD-SAFE: Both rows change in one transaction with relative updates. The
+     * store row is only reduced while it is IN_STORE and holds enough stock, so a
+     * concurrent sale, restock or move can neither be overwritten nor oversold.
+     * The codes are also locked so a new shelf item is inserted only once.
      */
     public void moveToShelf(String itemCode, int quantity) {
-        synchronized (inventoryLock) {
+        String shelfCode = itemCode + "_SHELF";
+        changeInventory(() -> itemLocks.withLocks(() -> connectionManager.executeInTransaction(() -> {
             Item item = itemGateway.findByCode(itemCode);
             if (item == null) {
                 throw new ItemNotFoundException("Item not found: " + itemCode);
             }
 
-            // Use state pattern to move to shelf
+            // Use state pattern to check the move against the item as read
             item.moveToShelf(quantity);
 
+            // The row may have changed since it was read; the guarded update decides
+            if (!itemGateway.takeFromStore(itemCode, quantity)) {
+                throw new InvalidStateTransitionException("Not enough items in store");
+            }
+
             // Create shelf item (in real implementation, might be separate entity)
-            Item shelfItem = itemGateway.findByCode(itemCode + "_SHELF");
-            if (shelfItem != null) {
-                // Update existing shelf item
-                int newQuantity = shelfItem.getQuantity().getValue() + quantity;
-                Item updatedShelfItem = new Item.Builder()
-                        .withCode(shelfItem.getCode().getValue())
-                        .withName(shelfItem.getName())
-                        .withPrice(shelfItem.getPrice().getValue())
-                        .withQuantity(newQuantity)
-                        .withExpiryDate(item.getExpiryDate())
-                        .withState(new OnShelfState())
-                        .withPurchaseDate(shelfItem.getPurchaseDate())
-                        .build();
-                itemGateway.update(updatedShelfItem);
-            } else {
-                // Create new shelf item
+            if (!itemGateway.addToShelf(shelfCode, quantity)) {
+                if (itemGateway.findByCode(shelfCode) != null) {
+                    throw new InvalidStateTransitionException("Shelf stock " + shelfCode + " has expired");
+                }
                 Item newShelfItem = new Item.Builder()
-                        .withCode(itemCode + "_SHELF")
+                        .withCode(shelfCode)
                         .withName(item.getName())
                         .withPrice(item.getPrice().getValue())
                         .withQuantity(quantity)
@@ -113,35 +117,28 @@ public class InventoryService {
                         .build();
                 itemGateway.insert(newShelfItem);
             }
-
-            // Update store item
-            itemGateway.update(item);
-        }
+        }), itemCode, shelfCode));
     }
 
     /**
      * Get all items
      */
     public List<Item> getAllItems() {
-        return itemGateway.findAll();
+        return catalog.getAll();
     }
 
     /**
      * Get items currently in store (not on shelf)
      */
     public List<Item> getItemsInStore() {
-        return itemGateway.findAll().stream()
-                .filter(item -> "IN_STORE".equals(item.getState().getStateName()))
-                .collect(Collectors.toList());
+        return catalog.getByState("IN_STORE");
     }
 
     /**
      * Get items currently on shelf
      */
     public List<Item> getItemsOnShelf() {
-        return itemGateway.findAll().stream()
-                .filter(item -> "ON_SHELF".equals(item.getState().getStateName()))
-                .collect(Collectors.toList());
+        return catalog.getByState("ON_SHELF");
     }
 
     /**
@@ -174,73 +171,94 @@ public class InventoryService {
 
     /**
      * Check and update expired items
+     * Overdue items are expired by a set-based sweep in a single transaction,
+     * while their codes are locked against concurrent stock changes.
+     * @return How many items were expired and how long it took
      */
-    public void checkAndUpdateExpiredItems() {
-        List<Item> items = itemGateway.findAll();
-        for (Item item : items) {
-            if (item.isExpired() && !item.getState().getStateName().equals("EXPIRED")) {
-                item.expire();
-                itemGateway.update(item);
-            }
+    public ExpirySweepResult checkAndUpdateExpiredItems() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        Object[] candidateCodes = itemGateway.findOverdueCodes(today).toArray();
+        List<String> expired = candidateCodes.length == 0
+                ? new ArrayList<>()
+                : itemLocks.withLocks(() -> itemGateway.expireOverdue(today), candidateCodes);
+        if (!expired.isEmpty()) {
+            inventoryChanged();
         }
+        return new ExpirySweepResult(expired, (System.nanoTime() - start) / 1_000_000);
     }
 
     /**
      * Update item price
+     * Only the price column is written, so stock sold meanwhile is kept.
      */
     public void updateItemPrice(String itemCode, BigDecimal newPrice) {
-        Item item = itemGateway.findByCode(itemCode);
-        if (item == null) {
-            throw new ItemNotFoundException("Item not found: " + itemCode);
+        changeInventory(() -> itemLocks.withLocks(() -> {
+            if (!itemGateway.updatePrice(itemCode, newPrice)) {
+                throw new ItemNotFoundException("Item not found: " + itemCode);
+            }
+        }, itemCode));
+    }
+
+    /**
+     * Run a stock change, then mark the stock reports stale. They are marked even if
+     * the change fails, since it may have written some rows before failing.
+     */
+    private void changeInventory(Runnable change) {
+        try {
+            change.run();
+        } finally {
+            inventoryChanged();
         }
+    }
+
+    private void inventoryChanged() {
+        reportCache.dataChanged(ReportCache.Source.INVENTORY);
+    }
 
-        Item updatedItem = new Item.Builder()
-                .withCode(item.getCode().getValue())
-                .withName(item.getName())
-                .withPrice(newPrice)
-                .withQuantity(item.getQuantity().getValue())
-                .withExpiryDate(item.getExpiryDate())
-                .withState(item.getState())
-                .withPurchaseDate(item.getPurchaseDate())
-                .build();
-
-        itemGateway.update(updatedItem);
+    /**
+     * Get contention on the per-item locks
+     * @return Waits and time waited per lock stripe
+     */
+    public String getLockContention() {
+        return itemLocks.toString();
     }
 
     /**
      * Get total inventory value
      */
     public BigDecimal getTotalInventoryValue() {
-        return itemGateway.findAll().stream()
-                .filter(item -> !item.getState().getStateName().equals("EXPIRED"))
-                .map(item -> item.getPrice().getValue()
-                        .multiply(BigDecimal.valueOf(item.getQuantity().getValue())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return getInventoryStatistics().totalValue;
     }
 
     /**
      * Get inventory statistics
+     * All six figures come from one aggregate query over the items table.
      */
     public InventoryStatistics getInventoryStatistics() {
-        List<Item> allItems = itemGateway.findAll();
-
-        int totalItems = allItems.size();
-        int totalQuantity = allItems.stream()
-                .mapToInt(item -> item.getQuantity().getValue())
-                .sum();
-        int expiredCount = (int) allItems.stream()
-                .filter(item -> item.getState().getStateName().equals("EXPIRED"))
-                .count();
-        int lowStockCount = getLowStockItems().size();
-        int expiringCount = getExpiringItems().size();
-        BigDecimal totalValue = getTotalInventoryValue();
-
+        ItemGateway.StockTotals totals = itemGateway.findStockTotals(REORDER_THRESHOLD, EXPIRY_WARNING_DAYS);
         return new InventoryStatistics(
-                totalItems, totalQuantity, expiredCount,
-                lowStockCount, expiringCount, totalValue
+                totals.getTotalItems(), totals.getTotalQuantity(), totals.getExpiredCount(),
+                totals.getLowStockCount(), totals.getExpiringCount(), totals.getTotalValue()
         );
     }
 
+    /**
+     * Get the statistics together with the low stock and expiring item lists.
+     * The three queries are independent, so two run on the query pool while the
+     * calling thread runs the third; the call takes about as long as the slowest.
+     */
+    public InventoryOverview getInventoryOverview() {
+        CompletableFuture<List<Item>> lowStock = CompletableFuture.supplyAsync(this::getLowStockItems, queryPool);
+        CompletableFuture<List<Item>> expiring = CompletableFuture.supplyAsync(this::getExpiringItems, queryPool);
+        InventoryStatistics statistics = getInventoryStatistics();
+        try {
+            return new InventoryOverview(statistics, lowStock.join(), expiring.join());
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
     /**
      * Inner class for inventory statistics
      */
@@ -263,4 +281,45 @@ public class InventoryService {
             this.totalValue = totalValue;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Statistics plus the items behind the low stock and expiring counts
+     */
+    public static final class InventoryOverview {
+        private final InventoryStatistics statistics;
+        private final List<Item> lowStockItems;
+        private final List<Item> expiringItems;
+
+        public InventoryOverview(InventoryStatistics statistics, List<Item> lowStockItems, List<Item> expiringItems) {
+            this.statistics = statistics;
+            this.lowStockItems = lowStockItems;
+            this.expiringItems = expiringItems;
+        }
+
+        public InventoryStatistics getStatistics() { return statistics; }
+        public List<Item> getLowStockItems() { return lowStockItems; }
+        public List<Item> getExpiringItems() { return expiringItems; }
+    }
+
+    /**
+     * Outcome of one expiry sweep
+     */
+    public static final class ExpirySweepResult {
+        private final List<String> expiredCodes;
+        private final long durationMillis;
+
+        public ExpirySweepResult(List<String> expiredCodes, long durationMillis) {
+            this.expiredCodes = expiredCodes;
+            this.durationMillis = durationMillis;
+        }
+
+        public List<String> getExpiredCodes() { return expiredCodes; }
+        public int getExpiredCount() { return expiredCodes.size(); }
+        public long getDurationMillis() { return durationMillis; }
+
+        @Override
+        public String toString() {
+            return "Expired " + expiredCodes.size() + " item(s) in " + durationMillis + "ms";
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.syos.application.services;
+
+import com.syos.infrastructure.config.DatabaseConfig;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Built reports, shared by every service in the JVM and keyed by report type and
+ * parameters. Each report depends on one kind of data, and each kind has a version
+ * counter that the services bump after they change it: SalesService.saveBill bumps
+ * both, the InventoryService mutators bump INVENTORY. A cached report is served
+ * until its data's version moves on, or until the TTL passes, which covers writes
+ * made by the other application.
+ *
+ * Reports over data that only changes when it is rebuilt (a finished day's sales)
+ * are cached against a version stored in the database, which every rebuild bumps,
+ * so a rebuild run from another application is seen too. A long TTL covers
+ * corrections made directly in SQL. All entries share one least-recently-used
+ * size limit.
+ */
+public class ReportCache {
+    private static ReportCache instance;
+
+    /**
+     * Data a cached report is built from
+     */
+    public enum Source {
+        SALES,
+        INVENTORY
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long permanentTtlNanos;
+    private final LinkedHashMap<String, Entry> entries;
+    private final AtomicLongArray versions = new AtomicLongArray(Source.values().length);
+    private final AtomicLong clears = new AtomicLong(); // Bumped by invalidateAll
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private ReportCache(int maxEntries, long ttlMillis, long permanentTtlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.permanentTtlNanos = TimeUnit.MILLISECONDS.toNanos(permanentTtlMillis);
+        // Access order makes iteration order least recently used first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static synchronized ReportCache getInstance() {
+        if (instance == null) {
+            DatabaseConfig config = DatabaseConfig.getInstance();
+            instance = new ReportCache(config.getReportCacheMaxEntries(), config.getReportCacheTtlMillis(),
+                    config.getReportCachePermanentTtlMillis());
+        }
+        return instance;
+    }
+
+    /**
+     * @return The cached report for key if source has not changed since it was built,
+     * otherwise a newly loaded one
+     */
+    public <T> T get(String key, Source source, Supplier<T> loader) {
+        return get(key, source, clears.get(), versions.get(source.ordinal()), ttlNanos, loader);
+    }
+
+    /**
+     * For reports whose data only changes when it is rebuilt: kept while dataVersion
+     * stays the same, up to the long permanent TTL
+     * @param dataVersion The stored version of the report's data, read before loading
+     */
+    public <T> T getPermanent(String key, long dataVersion, Supplier<T> loader) {
+        return get(key, null, clears.get(), dataVersion, permanentTtlNanos, loader);
+    }
+
+    /**
+     * Mark data as changed, so reports built from it are rebuilt on their next use.
+     * Inside a transaction the versions are bumped again once it ends, so a report
+     * read before the commit is not served afterwards.
+     */
+    public void dataChanged(Source... sources) {
+        bump(sources);
+        ConnectionManager.afterCompletion(() -> bump(sources));
+    }
+
+    /**
+     * Drop every report in this JVM, including permanent ones
+     */
+    public synchronized void invalidateAll() {
+        clears.incrementAndGet();
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * A report is only cached if nothing changed while it was being built
+     * @param source null for permanent reports
+     * @param readClears clears, taken before loading
+     * @param readVersion The source's version, or the permanent report's data version, taken before loading
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, Source source, long readClears, long readVersion, long ttl, Supplier<T> loader) {
+        if (maxEntries <= 0) {
+            return loader.get();
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            // A source's version is only compared with its own entries, never with a stored data version
+            if (entry != null && entry.source == source && entry.version == readVersion
+                    && System.nanoTime() - entry.loadedAt <= ttl) {
+                hits.increment();
+                return (T) entry.report;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        // Loaded without holding the lock; two threads may both build a missing report
+        T report = loader.get();
+        synchronized (this) {
+            boolean unchanged = clears.get() == readClears
+                    && (source == null || versions.get(source.ordinal()) == readVersion);
+            if (unchanged) {
+                entries.put(key, new Entry(report, source, readVersion, System.nanoTime()));
+                evictOverflow();
+            }
+        }
+        return report;
+    }
+
+    private void bump(Source[] sources) {
+        for (Source source : sources) {
+            versions.incrementAndGet(source.ordinal());
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReportCache[size=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                size(), maxEntries, getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    private static final class Entry {
+        private final Object report;
+        private final Source source; // null for permanent reports
+        private final long version;
+        private final long loadedAt;
+
+        private Entry(Object report, Source source, long version, long loadedAt) {
+            this.report = report;
+            this.source = source;
+            this.version = version;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -3,40 +3,96 @@ package com.syos.application.services;
 import com.syos.application.reports.*;
 import com.syos.domain.entities.*;
 import com.syos.infrastructure.persistence.gateways.*;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class ReportService {
     private final BillGateway billGateway;
     private final ItemGateway itemGateway;
+    private final SalesRollupGateway salesRollup;
+    private final ReportCache reportCache;
     private static final int REORDER_THRESHOLD = 50;
+    private static final Duration DAY_CLOSE_GRACE = Duration.ofMinutes(5); // Sales still committing at midnight
 
     public ReportService(BillGateway billGateway, ItemGateway itemGateway) {
         this.billGateway = billGateway;
         this.itemGateway = itemGateway;
+        this.salesRollup = new SalesRollupGateway();
+        this.reportCache = ReportCache.getInstance();
     }
 
     public String generateDailySalesReport(LocalDate date) {
-        List<Bill> bills = billGateway.findByDate(date);
-        DailySalesReport report = new DailySalesReport(date, bills);
-        return report.generateReport();
+        return buildDailySalesReport(date).generateReport();
     }
 
     public String generateStockReport() {
-        List<Item> items = itemGateway.findAll();
-        StockReport report = new StockReport(items);
-        return report.generateReport();
+        return buildStockReport().generateReport();
     }
 
     public String generateReorderReport() {
-        List<Item> lowStockItems = itemGateway.findLowStock(REORDER_THRESHOLD);
-        ReorderReport report = new ReorderReport(lowStockItems, REORDER_THRESHOLD);
-        return report.generateReport();
+        return buildReorderReport().generateReport();
     }
 
     public String generateReshelveReport() {
-        List<Item> expiringItems = itemGateway.findExpiringSoon(7);
-        ReshelveReport report = new ReshelveReport(expiringItems);
-        return report.generateReport();
+        return buildReshelveReport().generateReport();
+    }
+
+    /**
+     * Load the daily sales report's data without rendering it; call writeReport to stream it.
+     * Once the day is over (allowing for sales still committing) its report only
+     * changes when the rollup is rebuilt, and stays cached while the rollup version
+     * does; today's is rebuilt after each sale.
+     */
+    public AbstractReport buildDailySalesReport(LocalDate date) {
+        String key = "DAILY_SALES:" + date;
+        Supplier<AbstractReport> loader = () -> new DailySalesReport(date, salesRollup.findItemSales(date, date));
+        boolean dayClosed = date.plusDays(1).atStartOfDay().plus(DAY_CLOSE_GRACE).isBefore(LocalDateTime.now());
+        return dayClosed
+                ? reportCache.getPermanent(key, salesRollup.findVersion(), loader)
+                : reportCache.get(key, ReportCache.Source.SALES, loader);
+    }
+
+    /**
+     * Load the stock report's data without rendering it; call writeReport to stream it
+     */
+    public AbstractReport buildStockReport() {
+        return reportCache.get("STOCK", ReportCache.Source.INVENTORY, () -> {
+            List<Item> items = itemGateway.findAll();
+            return new StockReport(items);
+        });
+    }
+
+    /**
+     * Load the reorder report's data without rendering it; call writeReport to stream it
+     */
+    public AbstractReport buildReorderReport() {
+        return reportCache.get("REORDER", ReportCache.Source.INVENTORY, () -> {
+            List<Item> lowStockItems = itemGateway.findLowStock(REORDER_THRESHOLD);
+            return new ReorderReport(lowStockItems, REORDER_THRESHOLD);
+        });
+    }
+
+    /**
+     * Load the reshelve report's data without rendering it. Keyed by date, since
+     * days until expiry are counted from the day the report was built.
+     */
+    public AbstractReport buildReshelveReport() {
+        return reportCache.get("RESHELVE:" + LocalDate.now(), ReportCache.Source.INVENTORY, () -> {
+            List<Item> expiringItems = itemGateway.findExpiringSoon(7);
+            return new ReshelveReport(expiringItems);
+        });
+    }
+
+    /**
+     * Recompute the daily sales rollup from every bill, in parallel date chunks
+     * @return Number of item-day rows written
+     */
+    public int rebuildSalesRollup() {
+        int rows = salesRollup.rebuildAll();
+        reportCache.invalidateAll(); // Frees the memory now; other applications see the version bump
+        return rows;
     }
 }
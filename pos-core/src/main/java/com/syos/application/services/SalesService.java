@@ -6,12 +6,19 @@ import com.syos.domain.exceptions.EmptySaleException;
 import com.syos.domain.exceptions.InsufficientStockException;
 import com.syos.domain.exceptions.ItemNotFoundException;
 import com.syos.domain.valueobjects.*;
+import com.syos.infrastructure.config.DatabaseConfig;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
 import com.syos.infrastructure.persistence.gateways.*;
+import com.syos.shared.utils.Histogram;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -20,16 +27,30 @@ import java.util.stream.Collectors;
  *
  * THREAD-SAFE: This service is designed for concurrent access in multi-threaded
  * environments (e.g., Tomcat servlet container with multiple concurrent users).
- * Critical methods are synchronized to prevent race conditions.
+ * Stock is protected by conditional updates in the database rather than JVM locks.
  */
 public class SalesService {
     private final BillGateway billGateway;
     private final ItemGateway itemGateway;
-    private final Object saveLock = new Object(); // Lock for save operations
+    private final ConnectionManager connectionManager;
+    private final BillGroupCommitter groupCommitter; // null unless group commit is enabled
+    private final BillNumberAllocator billNumberAllocator;
+    private final SalesRollupGateway salesRollup;
+    private final ReportCache reportCache;
 
     public SalesService(BillGateway billGateway, ItemGateway itemGateway) {
         this.billGateway = billGateway;
         this.itemGateway = itemGateway;
+        this.connectionManager = new ConnectionManager();
+        this.billNumberAllocator = new BillNumberAllocator();
+        this.salesRollup = new SalesRollupGateway();
+        this.reportCache = ReportCache.getInstance();
+
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        this.groupCommitter = config.isGroupCommitEnabled()
+                ? new BillGroupCommitter(this::saveBillInCurrentTransaction, connectionManager,
+                        config.getGroupCommitMaxWaitMillis(), config.getGroupCommitMaxBatch())
+                : null;
     }
 
     /**
@@ -42,41 +63,93 @@ public class SalesService {
 
     /**
      * Save a completed bill to the database and update inventory
-     * THREAD-SAFE: Synchronized to ensure atomic bill save + inventory update.
-     * This prevents race conditions where multiple concurrent sales could
-     * oversell inventory.
+     * THREAD-SAFE: Stock is taken with conditional decrements that only succeed
+     * while enough quantity remains, so concurrent sales cannot oversell and
+     * sales of unrelated items no longer wait for each other.
+     *
+     * The bill insert and inventory updates run as one database transaction on
+     * a single connection, so a failure anywhere rolls back the whole sale.
+     * With group commit enabled, concurrent sales share one transaction, each
+     * behind its own savepoint, and this call waits until the group commits.
      *
      * @param bill The bill to save
-     * @return The database-generated bill number
+     * @return The bill number allocated when the sale was completed
      * @throws InsufficientStockException if stock is insufficient at save time
      */
     public int saveBill(Bill bill) {
-        synchronized (saveLock) {
-            // Double-check stock availability at save time (prevents race conditions)
-            for (BillItem billItem : bill.getItems()) {
-                Item currentItem = itemGateway.findByCode(billItem.getItem().getCode().getValue());
-                if (currentItem.getQuantity().getValue() < billItem.getQuantity().getValue()) {
-                    throw new InsufficientStockException(
-                            "Insufficient stock for item " + currentItem.getName() +
-                            ". Available: " + currentItem.getQuantity().getValue() +
-                            ", Requested: " + billItem.getQuantity().getValue()
-                    );
-                }
-            }
+        int billNumber = commitBill(bill);
+        // The sale changed both takings and stock; reports built from either are stale
+        reportCache.dataChanged(ReportCache.Source.SALES, ReportCache.Source.INVENTORY);
+        return billNumber;
+    }
 
-            // Save bill and update inventory atomically
-            // NOTE: In production, this should use database transactions
-            int billNumber = billGateway.saveBillWithItems(bill);
+    private int commitBill(Bill bill) {
+        if (groupCommitter == null || ConnectionManager.isTransactionActive()) {
+            return connectionManager.executeInTransaction(() -> saveBillInCurrentTransaction(bill));
+        }
 
-            // Update item quantities
-            for (BillItem billItem : bill.getItems()) {
-                Item item = billItem.getItem();
-                item.sell(billItem.getQuantity().getValue());
-                itemGateway.update(item);
+        try {
+            return groupCommitter.submit(bill).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw e;
+        }
+    }
+
+    private int saveBillInCurrentTransaction(Bill bill) {
+        // Lines for the same item are taken off the shelf together
+        Map<String, Integer> quantitiesByCode = new LinkedHashMap<>();
+        for (BillItem billItem : bill.getItems()) {
+            quantitiesByCode.merge(billItem.getItem().getCode().getValue(),
+                    billItem.getQuantity().getValue(), Integer::sum);
+        }
+
+        List<String> shortCodes = itemGateway.decrementStock(quantitiesByCode);
+        if (!shortCodes.isEmpty()) {
+            // Throwing rolls back any decrements already applied
+            String code = shortCodes.get(0);
+            throw insufficientStock(code, quantitiesByCode.get(code));
+        }
+
+        // Save bill; joins the surrounding transaction
+        return billGateway.saveBillWithItems(bill);
+    }
 
-            return billNumber;
+    /**
+     * Get the number of bills committed together per group
+     * @return Batch size distribution, or null if group commit is disabled
+     */
+    public Histogram getGroupCommitBatchSizes() {
+        return groupCommitter != null ? groupCommitter.getBatchSizes() : null;
+    }
+
+    /**
+     * Stop the group commit collector after saving bills already queued, and close
+     * the bill number allocator's connection
+     */
+    public void shutdown() {
+        if (groupCommitter != null) {
+            groupCommitter.shutdown();
         }
+        billNumberAllocator.close();
+    }
+
+    private RuntimeException insufficientStock(String code, int requested) {
+        Item currentItem = itemGateway.findByCode(code);
+        if (currentItem == null) {
+            return new ItemNotFoundException("Item with code " + code + " not found");
+        }
+        if (!"ON_SHELF".equals(currentItem.getState().getStateName())) {
+            return new InsufficientStockException("Item " + currentItem.getName() +
+                    " is not available for sale. Current state: " + currentItem.getState().getStateName());
+        }
+        return new InsufficientStockException(
+                "Insufficient stock for item " + currentItem.getName() +
+                ". Available: " + currentItem.getQuantity().getValue() +
+                ", Requested: " + requested
+        );
     }
 
     /**
@@ -87,6 +160,39 @@ public class SalesService {
         return billGateway.findByDate(LocalDate.now());
     }
 
+    /**
+     * Get today's most recent bills, newest first, without loading the whole day
+     * @param limit Maximum number of bills
+     */
+    public List<Bill> getRecentBillsForToday(int limit) {
+        LocalDate today = LocalDate.now();
+        List<Bill> bills = new ArrayList<>();
+        for (Bill bill : billGateway.findPage(null, limit).getBills()) {
+            if (bill.getBillDate().toLocalDate().equals(today)) {
+                bills.add(bill);
+            }
+        }
+        return bills;
+    }
+
+    /**
+     * Get the bill count and takings for a date from the daily sales rollup
+     * @param date The date to total
+     */
+    public SalesRollupGateway.DayTotals getSalesTotals(LocalDate date) {
+        return salesRollup.findTotals(date, date);
+    }
+
+    /**
+     * Get average sale, discount given and most popular item for a date range,
+     * computed by the database without loading the bills
+     * @param firstDay First day (inclusive)
+     * @param lastDay Last day (inclusive)
+     */
+    public SalesRollupGateway.SalesStatistics getSalesStatistics(LocalDate firstDay, LocalDate lastDay) {
+        return salesRollup.findStatistics(firstDay, lastDay);
+    }
+
     /**
      * Get all bills from the database
      * @return List of all bills
@@ -95,6 +201,24 @@ public class SalesService {
         return billGateway.findAll();
     }
 
+    /**
+     * Get one page of bills, newest first
+     * @param after Cursor returned with the previous page, or null for the first page
+     * @param pageSize Maximum number of bills in the page
+     * @return The page of bills and the cursor for the next one
+     */
+    public BillGateway.Page getBillsPage(BillGateway.Cursor after, int pageSize) {
+        return billGateway.findPage(after, pageSize);
+    }
+
+    /**
+     * Pass every bill, newest first, to the callback without loading them all into memory
+     * @param callback Receives each bill in turn
+     */
+    public void forEachBill(Consumer<Bill> callback) {
+        billGateway.streamAll(callback);
+    }
+
     /**
      * Get bills for a specific date
      * @param date The date to search for
@@ -130,8 +254,7 @@ public class SalesService {
      * @return List of available items
      */
     public List<Item> getAvailableItems() {
-        return itemGateway.findAll().stream()
-                .filter(item -> "ON_SHELF".equals(item.getState().getStateName()))
+        return ItemCatalogReplica.getInstance().getByState("ON_SHELF").stream()
                 .filter(item -> item.getQuantity().getValue() > 0)
                 .collect(Collectors.toList());
     }
@@ -257,23 +380,21 @@ public class SalesService {
          * Recalculate the subtotal after modifications
          */
         private void recalculateSubtotal() {
-            subtotal = items.stream()
-                    .map(BillItem::getTotalPrice)
-                    .reduce(new Money(BigDecimal.ZERO), Money::add);
+            MoneyAccumulator total = new MoneyAccumulator();
+            for (BillItem item : items) {
+                total.add(item.getTotalPrice());
+            }
+            subtotal = total.toMoney();
         }
 
         /**
          * Generate a unique bill number
+         * Numbers come from blocks reserved in the bill_sequence table, so the
+         * bill has its final number before it is saved.
          * @return A unique bill number
          */
         private int generateBillNumber() {
-            // In a production system, this would:
-            // 1. Query the database for the last bill number
-            // 2. Increment and return the next number
-            // 3. Or use a sequence/auto-increment in the database
-
-            // For now, use timestamp-based generation
-            return (int) (System.currentTimeMillis() % 1000000);
+            return billNumberAllocator.next().getValue();
         }
     }
 }
\ No newline at end of file
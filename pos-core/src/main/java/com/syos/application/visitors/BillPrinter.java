@@ -2,12 +2,24 @@ package com.syos.application.visitors;
 
 import com.syos.domain.entities.*;
 import com.syos.domain.interfaces.BillVisitor;
+import com.syos.shared.utils.TableFormatter;
 
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 
 public class BillPrinter implements BillVisitor {
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String RULE = TableFormatter.rule('-', 60);
+    private static final String DOUBLE_RULE = TableFormatter.rule('=', 60);
+    private static final TableFormatter ITEMS = new TableFormatter.Builder()
+            .left("Item", 30)
+            .right("Qty", 10)
+            .right("Total", 15)
+            .build();
+    private static final TableFormatter TOTALS = new TableFormatter.Builder()
+            .left(40)
+            .right(15)
+            .build();
     private final StringBuilder output;
 
     public BillPrinter() {
@@ -19,42 +31,43 @@ public class BillPrinter implements BillVisitor {
         output.setLength(0); // Clear previous output
 
         // Header
-        output.append("\n").append("=".repeat(60)).append("\n");
+        output.append("\n").append(DOUBLE_RULE).append("\n");
         output.append(centerText("SYOS OUTLET STORE", 60)).append("\n");
         output.append(centerText("SALES RECEIPT", 60)).append("\n");
-        output.append("=".repeat(60)).append("\n");
+        output.append(DOUBLE_RULE).append("\n");
 
         // Bill details
         output.append("Bill No: ").append(bill.getBillNumber()).append("\n");
         output.append("Date: ").append(bill.getBillDate().format(formatter)).append("\n");
         output.append("Transaction Type: ").append(bill.getTransactionType()).append("\n");
-        output.append("-".repeat(60)).append("\n");
+        output.append(RULE).append("\n");
 
         // Items
-        output.append(String.format("%-30s %10s %15s%n", "Item", "Qty", "Total"));
-        output.append("-".repeat(60)).append("\n");
+        ITEMS.appendHeader(output);
+        output.append(RULE).append("\n");
 
         for (BillItem item : bill.getItems()) {
-            output.append(String.format("%-30s %10d %15s%n",
-                    truncate(item.getItem().getName(), 30),
-                    item.getQuantity().getValue(),
-                    item.getTotalPrice()));
+            ITEMS.row(output)
+                    .cell(truncate(item.getItem().getName(), 30))
+                    .cell(item.getQuantity().getValue())
+                    .cell(item.getTotalPrice())
+                    .end();
         }
 
-        output.append("-".repeat(60)).append("\n");
+        output.append(RULE).append("\n");
 
         // Totals
-        output.append(String.format("%-40s %15s%n", "Subtotal:", bill.getTotalAmount()));
+        TOTALS.row(output).cell("Subtotal:").cell(bill.getTotalAmount()).end();
         if (bill.getDiscount().getValue().compareTo(BigDecimal.ZERO) > 0) {
-            output.append(String.format("%-40s %15s%n", "Discount:", bill.getDiscount()));
-            output.append(String.format("%-40s %15s%n", "Total:", bill.getFinalAmount()));
+            TOTALS.row(output).cell("Discount:").cell(bill.getDiscount()).end();
+            TOTALS.row(output).cell("Total:").cell(bill.getFinalAmount()).end();
         }
-        output.append(String.format("%-40s %15s%n", "Cash Tendered:", bill.getCashTendered()));
-        output.append(String.format("%-40s %15s%n", "Change:", bill.getChange()));
+        TOTALS.row(output).cell("Cash Tendered:").cell(bill.getCashTendered()).end();
+        TOTALS.row(output).cell("Change:").cell(bill.getChange()).end();
 
-        output.append("=".repeat(60)).append("\n");
+        output.append(DOUBLE_RULE).append("\n");
         output.append(centerText("Thank you for shopping with us!", 60)).append("\n");
-        output.append("=".repeat(60)).append("\n");
+        output.append(DOUBLE_RULE).append("\n");
     }
 
     public String getOutput() {
@@ -3,55 +3,96 @@ package com.syos.application.visitors;
 import com.syos.domain.entities.*;
 import com.syos.domain.interfaces.BillVisitor;
 import com.syos.domain.valueobjects.Money;
+import com.syos.domain.valueobjects.MoneyAccumulator;
+import com.syos.shared.utils.ObjectIntMap;
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.stream.Collector;
 
+/**
+ * Totals, average and item popularity over a set of bills.
+ * A new visitor is the empty result, visit adds one bill, and combine merges the
+ * results of two disjoint sets of bills, so the statistics can be gathered over
+ * a partitioned or parallel stream and give the same answer as one pass.
+ */
 public class BillStatisticsVisitor implements BillVisitor {
     private int billCount = 0;
-    private Money totalRevenue = new Money(BigDecimal.ZERO);
-    private Money totalDiscount = new Money(BigDecimal.ZERO);
-    private Map<String, Integer> itemFrequency = new HashMap<>();
+    private final MoneyAccumulator totalRevenue = new MoneyAccumulator();
+    private final MoneyAccumulator totalDiscount = new MoneyAccumulator();
+    private final ObjectIntMap<String> itemFrequency = new ObjectIntMap<>();
+
+    /**
+     * Collect bills into statistics, for example
+     * {@code bills.parallelStream().collect(BillStatisticsVisitor.collector())}
+     */
+    public static Collector<Bill, BillStatisticsVisitor, BillStatisticsVisitor> collector() {
+        return Collector.of(BillStatisticsVisitor::new,
+                (statistics, bill) -> bill.accept(statistics),
+                BillStatisticsVisitor::combine,
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
 
     @Override
     public void visit(Bill bill) {
         billCount++;
-        totalRevenue = totalRevenue.add(bill.getFinalAmount());
-        totalDiscount = totalDiscount.add(bill.getDiscount());
+        totalRevenue.add(bill.getFinalAmount());
+        totalDiscount.add(bill.getDiscount());
 
         for (BillItem item : bill.getItems()) {
-            String itemName = item.getItem().getName();
-            itemFrequency.merge(itemName, item.getQuantity().getValue(), Integer::sum);
+            itemFrequency.add(item.getItem().getName(), item.getQuantity().getValue());
         }
     }
 
+    /**
+     * Add the statistics of another, disjoint set of bills to these
+     * @return This visitor; other is unchanged
+     */
+    public BillStatisticsVisitor combine(BillStatisticsVisitor other) {
+        billCount += other.billCount;
+        totalRevenue.add(other.totalRevenue);
+        totalDiscount.add(other.totalDiscount);
+        itemFrequency.addAll(other.itemFrequency);
+        return this;
+    }
+
     public int getBillCount() {
         return billCount;
     }
 
     public Money getTotalRevenue() {
-        return totalRevenue;
+        return totalRevenue.toMoney();
     }
 
     public Money getAverageTransaction() {
         if (billCount == 0) {
             return new Money(BigDecimal.ZERO);
         }
-        return new Money(totalRevenue.getValue().divide(
+        return new Money(totalRevenue.toMoney().getValue().divide(
                 BigDecimal.valueOf(billCount), 2, BigDecimal.ROUND_HALF_UP));
     }
 
     public Money getTotalDiscount() {
-        return totalDiscount;
+        return totalDiscount.toMoney();
     }
 
     public Map<String, Integer> getItemFrequency() {
-        return new HashMap<>(itemFrequency);
+        return itemFrequency.toMap();
     }
 
+    /**
+     * @return The item sold in the greatest quantity; ties go to the first name alphabetically
+     */
     public String getMostPopularItem() {
-        return itemFrequency.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("N/A");
+        String[] best = {null};
+        int[] bestQuantity = {0};
+        itemFrequency.forEach((name, quantity) -> {
+            if (best[0] == null || quantity > bestQuantity[0]
+                    || (quantity == bestQuantity[0] && name.compareTo(best[0]) < 0)) {
+                best[0] = name;
+                bestQuantity[0] = quantity;
+            }
+        });
+        return best[0] != null ? best[0] : "N/A";
     }
-}
\ No newline at end of file
+}
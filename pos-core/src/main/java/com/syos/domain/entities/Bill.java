@@ -138,9 +138,11 @@ public class Bill implements BillInterface {
 
 
         private Money calculateTotal() {
-            return items.stream()
-                    .map(BillItem::getTotalPrice)
-                    .reduce(new Money(BigDecimal.ZERO), Money::add);
+            MoneyAccumulator total = new MoneyAccumulator();
+            for (BillItem item : items) {
+                total.add(item.getTotalPrice());
+            }
+            return total.toMoney();
         }
     }
 
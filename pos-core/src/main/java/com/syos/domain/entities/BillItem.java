@@ -5,15 +5,25 @@ import com.syos.domain.valueobjects.*;
 public class BillItem {
     private final Item item;
     private final Quantity quantity;
+    private final Money unitPrice;
     private final Money totalPrice;
 
     public BillItem(Item item, int quantity) {
+        this(item, quantity, item.getPrice());
+    }
+
+    /**
+     * @param unitPrice Price charged per unit, which for saved bills may differ from the item's current price
+     */
+    public BillItem(Item item, int quantity, Money unitPrice) {
         this.item = item;
         this.quantity = new Quantity(quantity);
-        this.totalPrice = item.getPrice().multiply(quantity);
+        this.unitPrice = unitPrice;
+        this.totalPrice = unitPrice.multiply(quantity);
     }
 
     public Item getItem() { return item; }
     public Quantity getQuantity() { return quantity; }
+    public Money getUnitPrice() { return unitPrice; }
     public Money getTotalPrice() { return totalPrice; }
 }
\ No newline at end of file
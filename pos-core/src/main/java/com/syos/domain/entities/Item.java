@@ -93,6 +93,21 @@ public class Item {
         this.quantity = builder.quantity;
     }
 
+    /**
+     * Create an independent copy; state and quantity changes on the copy do not affect this item
+     */
+    public Item copy() {
+        Builder builder = new Builder();
+        builder.code = code;
+        builder.name = name;
+        builder.price = price;
+        builder.expiryDate = expiryDate;
+        builder.state = state;
+        builder.purchaseDate = purchaseDate;
+        builder.quantity = quantity;
+        return new Item(builder);
+    }
+
     // State Pattern methods
     public void moveToShelf(int amount) {
         state.moveToShelf(this, amount);
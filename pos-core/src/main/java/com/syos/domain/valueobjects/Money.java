@@ -15,6 +15,21 @@ public final class Money {
         this.amount = amount.setScale(SCALE, RoundingMode.HALF_UP);
     }
 
+    /**
+     * @param cents Amount in minor units (1234 is 12.34)
+     */
+    public static Money ofCents(long cents) {
+        return new Money(BigDecimal.valueOf(cents, SCALE));
+    }
+
+    /**
+     * @return The amount in minor units (12.34 is 1234)
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public long toCents() {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
     public Money add(Money other) {
         return new Money(this.amount.add(other.amount));
     }
@@ -0,0 +1,80 @@
+package com.syos.domain.valueobjects;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable running total of Money amounts, for sums over many bills or lines.
+ * Money always holds exactly two decimal places, so adding and multiplying by
+ * whole quantities never rounds; the total is kept as a long count of cents and
+ * toMoney() gives exactly what chained Money.add/multiply calls would.
+ * If the cents overflow a long the total carries on in BigDecimal instead.
+ *
+ * Not thread-safe: give each thread its own and combine them at the end.
+ */
+public final class MoneyAccumulator {
+    private long cents;
+    private BigDecimal overflow; // Used instead of cents once they no longer fit in a long
+
+    public MoneyAccumulator add(Money amount) {
+        try {
+            return addCents(amount.toCents());
+        } catch (ArithmeticException e) {
+            return addBig(amount.getValue().movePointRight(2));
+        }
+    }
+
+    /**
+     * Add unitPrice x quantity, as BillItem computes a line total
+     */
+    public MoneyAccumulator add(Money unitPrice, int quantity) {
+        try {
+            return addCents(Math.multiplyExact(unitPrice.toCents(), (long) quantity));
+        } catch (ArithmeticException e) {
+            return addBig(unitPrice.getValue().movePointRight(2).multiply(BigDecimal.valueOf(quantity)));
+        }
+    }
+
+    public MoneyAccumulator subtract(Money amount) {
+        try {
+            return addCents(Math.negateExact(amount.toCents()));
+        } catch (ArithmeticException e) {
+            return addBig(amount.getValue().movePointRight(2).negate());
+        }
+    }
+
+    /**
+     * Add another accumulator's total; the other accumulator is unchanged
+     */
+    public MoneyAccumulator add(MoneyAccumulator other) {
+        return other.overflow != null ? addBig(other.overflow) : addCents(other.cents);
+    }
+
+    public MoneyAccumulator addCents(long amountCents) {
+        if (overflow == null) {
+            try {
+                cents = Math.addExact(cents, amountCents);
+                return this;
+            } catch (ArithmeticException e) {
+                // Carry on in BigDecimal
+            }
+        }
+        return addBig(BigDecimal.valueOf(amountCents));
+    }
+
+    public Money toMoney() {
+        return new Money(overflow != null ? overflow.movePointLeft(2) : BigDecimal.valueOf(cents, 2));
+    }
+
+    private MoneyAccumulator addBig(BigDecimal amountCents) {
+        if (overflow == null) {
+            overflow = BigDecimal.valueOf(cents);
+        }
+        overflow = overflow.add(amountCents);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return toMoney().toString();
+    }
+}
@@ -2,6 +2,7 @@ package com.syos.infrastructure.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.LocalTime;
 import java.util.Properties;
 
 public class DatabaseConfig {
@@ -30,6 +31,13 @@ public class DatabaseConfig {
         } catch (IOException e) {
             throw new RuntimeException("Failed to load configuration", e);
         }
+
+        // -Ddb.* and -Dapp.* system properties override the file, e.g. to point tests at a scratch database
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("db.") || name.startsWith("app.")) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
     }
 
     public String getConnectionUrl() {
@@ -44,6 +52,33 @@ public class DatabaseConfig {
         return properties.getProperty("db.password", "SportS28");
     }
 
+    /**
+     * JDBC URL of a read replica for reports; empty when there is none
+     */
+    public String getReplicaConnectionUrl() {
+        return properties.getProperty("db.replica.url", "").trim();
+    }
+
+    public boolean hasReplica() {
+        return !getReplicaConnectionUrl().isEmpty();
+    }
+
+    public int getReplicaMaxPoolSize() {
+        return Integer.parseInt(properties.getProperty("db.replica.pool.max", "5"));
+    }
+
+    public int getReplicaInitialPoolSize() {
+        return Integer.parseInt(properties.getProperty("db.replica.pool.initial", "2"));
+    }
+
+    /**
+     * Idle replica connections the housekeeper keeps open; defaults to the replica's initial pool size
+     */
+    public int getReplicaMinIdle() {
+        return Integer.parseInt(properties.getProperty("db.replica.pool.minIdle",
+                String.valueOf(getReplicaInitialPoolSize())));
+    }
+
     public int getMaxPoolSize() {
         return Integer.parseInt(properties.getProperty("db.pool.max", "10"));
     }
@@ -51,4 +86,183 @@ public class DatabaseConfig {
     public int getInitialPoolSize() {
         return Integer.parseInt(properties.getProperty("db.pool.initial", "5"));
     }
-}
\ No newline at end of file
+
+    /**
+     * How long a caller may wait for a free connection before the pool gives up
+     */
+    public long getAcquireTimeoutMillis() {
+        return Long.parseLong(properties.getProperty("db.pool.acquireTimeoutMs", "5000"));
+    }
+
+    /**
+     * Idle connections the housekeeper keeps open; defaults to the initial pool size
+     */
+    public int getMinIdle() {
+        return Integer.parseInt(properties.getProperty("db.pool.minIdle",
+                String.valueOf(getInitialPoolSize())));
+    }
+
+    /**
+     * Connections older than this are closed and replaced.
+     * Keep it below MySQL's wait_timeout.
+     */
+    public long getMaxLifetimeMillis() {
+        return Long.parseLong(properties.getProperty("db.pool.maxLifetimeMs", "1800000"));
+    }
+
+    public long getIdleTimeoutMillis() {
+        return Long.parseLong(properties.getProperty("db.pool.idleTimeoutMs", "600000"));
+    }
+
+    public long getHousekeepingIntervalMillis() {
+        return Long.parseLong(properties.getProperty("db.pool.housekeepingIntervalMs", "30000"));
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return Integer.parseInt(properties.getProperty("db.pool.validationTimeoutSeconds", "2"));
+    }
+
+    /**
+     * Prepared statements cached per pooled connection; 0 disables the cache
+     */
+    public int getStatementCacheSize() {
+        return Integer.parseInt(properties.getProperty("db.pool.statementCacheSize", "32"));
+    }
+
+    /**
+     * Checked-out connections held longer than this are logged as possible leaks; 0 disables
+     */
+    public long getLeakDetectionThresholdMillis() {
+        return Long.parseLong(properties.getProperty("db.pool.leakDetectionThresholdMs", "60000"));
+    }
+
+    /**
+     * Use MySQL server-side prepared statements (useServerPrepStmts)
+     */
+    public boolean isServerPreparedStatements() {
+        return Boolean.parseBoolean(properties.getProperty("db.pool.serverPrepStmts", "false"));
+    }
+
+    /**
+     * Collect concurrent bill saves and commit them together
+     */
+    public boolean isGroupCommitEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.groupCommit.enabled", "false"));
+    }
+
+    /**
+     * How long the first bill of a group waits for others to join
+     */
+    public long getGroupCommitMaxWaitMillis() {
+        return Long.parseLong(properties.getProperty("db.groupCommit.maxWaitMs", "5"));
+    }
+
+    public int getGroupCommitMaxBatch() {
+        return Integer.parseInt(properties.getProperty("db.groupCommit.maxBatch", "32"));
+    }
+
+    /**
+     * Bill numbers reserved from the bill_sequence table per round-trip
+     */
+    public int getBillNumberBlockSize() {
+        return Integer.parseInt(properties.getProperty("db.billSequence.blockSize", "50"));
+    }
+
+    /**
+     * Let the driver rewrite JDBC batches into multi-row statements (rewriteBatchedStatements)
+     */
+    public boolean isRewriteBatchedStatements() {
+        return Boolean.parseBoolean(properties.getProperty("db.batch.rewrite", "false"));
+    }
+
+    /**
+     * Rows sent per executeBatch by the gateways' bulk operations
+     */
+    public int getBatchSize() {
+        return Integer.parseInt(properties.getProperty("db.batch.size", "500"));
+    }
+
+    /**
+     * Items kept in the in-process item cache; 0 disables it
+     */
+    public int getItemCacheMaxSize() {
+        return Integer.parseInt(properties.getProperty("app.cache.items.maxSize", "1000"));
+    }
+
+    /**
+     * Cached items are re-read after this long even if no write was seen
+     */
+    public long getItemCacheTtlMillis() {
+        return Long.parseLong(properties.getProperty("app.cache.items.ttlMs", "30000"));
+    }
+
+    /**
+     * Built reports kept in the in-process report cache; 0 disables it
+     */
+    public int getReportCacheMaxEntries() {
+        return Integer.parseInt(properties.getProperty("app.cache.reports.maxEntries", "50"));
+    }
+
+    /**
+     * Cached reports over changing data are rebuilt after this long even if no write was seen
+     */
+    public long getReportCacheTtlMillis() {
+        return Long.parseLong(properties.getProperty("app.cache.reports.ttlMs", "30000"));
+    }
+
+    /**
+     * Finished days' reports are rebuilt after this long even if the rollup version has not moved
+     */
+    public long getReportCachePermanentTtlMillis() {
+        return Long.parseLong(properties.getProperty("app.cache.reports.permanentTtlMs", "21600000"));
+    }
+
+    /**
+     * Serve catalogue listings from the in-memory item catalogue replica
+     */
+    public boolean isCatalogReplicaEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("app.catalog.replica.enabled", "true"));
+    }
+
+    /**
+     * Delay between polls for items changed on other nodes
+     */
+    public long getCatalogPollMillis() {
+        return Long.parseLong(properties.getProperty("app.catalog.pollMs", "300"));
+    }
+
+    /**
+     * Interval between full reloads of the catalogue, which pick up deleted items
+     */
+    public long getCatalogFullSyncMillis() {
+        return Long.parseLong(properties.getProperty("app.catalog.fullSyncMs", "300000"));
+    }
+
+    /**
+     * Days of bills recomputed per transaction when the sales rollup is rebuilt
+     */
+    public int getSalesRollupChunkDays() {
+        return Integer.parseInt(properties.getProperty("db.salesRollup.rebuildChunkDays", "31"));
+    }
+
+    /**
+     * Chunks rebuilt at once; each holds a pooled connection while it runs
+     */
+    public int getSalesRollupThreads() {
+        return Integer.parseInt(properties.getProperty("db.salesRollup.rebuildThreads", "4"));
+    }
+
+    /**
+     * Run the scheduled expiry sweep in this application
+     */
+    public boolean isExpirySweepEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("app.expiry.sweep.enabled", "true"));
+    }
+
+    /**
+     * Local time of day the expiry sweep runs, as HH:mm
+     */
+    public LocalTime getExpirySweepTime() {
+        return LocalTime.parse(properties.getProperty("app.expiry.sweep.time", "00:05"));
+    }
+}
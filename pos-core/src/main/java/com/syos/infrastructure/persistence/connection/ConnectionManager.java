@@ -2,55 +2,291 @@ package com.syos.infrastructure.persistence.connection;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Entry point gateways use to run JDBC work.
+ *
+ * A unit of work started with executeInTransaction binds one connection to the
+ * current thread. While it is active, every executeWithConnection,
+ * executeWithTransaction and executeReadOnly call on that thread - from any
+ * gateway - joins it and runs on the bound connection instead of borrowing
+ * its own, and everything commits or rolls back together.
+ */
 public class ConnectionManager {
+    private static final ThreadLocal<TransactionContext> currentTransaction = new ThreadLocal<>();
+
     private final DatabaseConnectionPool pool;
+    private final DatabaseConnectionPool readPool;
 
     public ConnectionManager() {
         this.pool = DatabaseConnectionPool.getInstance();
+        this.readPool = DatabaseConnectionPool.getReadInstance();
     }
 
-    public <T> T executeWithConnection(ConnectionCallback<T> callback) {
-        Connection connection = null;
+    /**
+     * @return true if the calling thread is inside executeInTransaction
+     */
+    public static boolean isTransactionActive() {
+        return currentTransaction.get() != null;
+    }
+
+    /**
+     * Run the action once the current transaction has ended, or immediately if
+     * no transaction is active. Use it to drop cached copies of rows the transaction
+     * wrote, so nothing cached before the commit outlives it. Actions also run after
+     * a rollback, so they must be safe to run either way.
+     */
+    public static void afterCompletion(Runnable action) {
+        TransactionContext transaction = currentTransaction.get();
+        if (transaction == null) {
+            action.run();
+        } else {
+            transaction.afterCompletion.add(action);
+        }
+    }
+
+    /**
+     * Run the work as one database transaction on one connection.
+     * Gateway calls made by the work join the transaction automatically. If a
+     * transaction is already active on this thread, the work simply joins it.
+     * Exceptions thrown by the work roll the transaction back and are rethrown as-is.
+     * @throws ConnectionPoolTimeoutException if the pool had no free connection in time
+     */
+    public <T> T executeInTransaction(Supplier<T> work) {
+        if (currentTransaction.get() != null) {
+            return work.get();
+        }
+
+        Connection connection = pool.acquireConnection();
+        TransactionContext transaction = new TransactionContext(connection);
+        boolean committed = false;
         try {
-            connection = pool.acquireConnection();
-            return callback.execute(connection);
+            connection.setAutoCommit(false);
+            currentTransaction.set(transaction);
+
+            T result = work.get();
+
+            connection.commit();
+            committed = true;
+            return result;
         } catch (SQLException e) {
-            throw new RuntimeException("Database operation failed", e);
+            throw new RuntimeException("Transaction failed", e);
+        } finally {
+            currentTransaction.remove();
+            if (!committed) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackEx) {
+                    // Log rollback failure
+                }
+            }
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                // Log error
+            }
+            pool.releaseConnection(connection);
+
+            for (Runnable action : transaction.afterCompletion) {
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * Run the work as one database transaction; see executeInTransaction(Supplier)
+     */
+    public void executeInTransaction(Runnable work) {
+        executeInTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run the work behind a savepoint of the current transaction.
+     * If the work throws, only its own changes are rolled back and the exception is
+     * rethrown as-is; the surrounding transaction stays usable for further work.
+     * @throws IllegalStateException if no transaction is active on this thread
+     */
+    public <T> T executeInSavepoint(Supplier<T> work) {
+        TransactionContext transaction = currentTransaction.get();
+        if (transaction == null) {
+            throw new IllegalStateException("executeInSavepoint requires an active transaction");
+        }
+
+        Connection connection = transaction.connection;
+        Savepoint savepoint;
+        try {
+            savepoint = connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to set savepoint", e);
+        }
+
+        T result;
+        try {
+            result = work.get();
+        } catch (RuntimeException e) {
+            try {
+                connection.rollback(savepoint);
+            } catch (SQLException rollbackEx) {
+                e.addSuppressed(rollbackEx);
+            }
+            throw e;
+        }
+
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to release savepoint", e);
+        }
+        return result;
+    }
+
+    /**
+     * Run the callback on a pooled connection, or on the thread's transaction connection if one is active.
+     * @throws ConnectionPoolTimeoutException if the pool had no free connection in time
+     */
+    public <T> T executeWithConnection(ConnectionCallback<T> callback) {
+        TransactionContext transaction = currentTransaction.get();
+        if (transaction != null) {
+            return executeOn(transaction.connection, callback, "Database operation failed");
+        }
+
+        // Acquire outside the try so pool timeouts surface unwrapped
+        Connection connection = pool.acquireConnection();
+        try {
+            return executeOn(connection, callback, "Database operation failed");
+        } finally {
+            pool.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Run the callback on its own pooled connection in auto-commit mode, even if a
+     * transaction is active on this thread. Its work commits immediately and is not
+     * undone if the surrounding transaction rolls back; use it for things like
+     * sequence allocation that must not hold locks until the caller commits.
+     * @throws ConnectionPoolTimeoutException if the pool had no free connection in time
+     */
+    public <T> T executeOutsideTransaction(ConnectionCallback<T> callback) {
+        Connection connection = pool.acquireConnection();
+        try {
+            return executeOn(connection, callback, "Database operation failed");
         } finally {
-            if (connection != null) {
-                pool.releaseConnection(connection);
+            pool.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Run a read-only callback on the reporting pool (the replica when one is configured).
+     * Use for reports and listings that can tolerate replication lag; anything that
+     * must see the caller's own writes belongs on executeWithConnection.
+     * Inside a transaction the callback runs on the transaction's connection instead.
+     * @throws ConnectionPoolTimeoutException if the pool had no free connection in time
+     */
+    public <T> T executeReadOnly(ConnectionCallback<T> callback) {
+        TransactionContext transaction = currentTransaction.get();
+        if (transaction != null) {
+            return executeOn(transaction.connection, callback, "Database read failed");
+        }
+
+        Connection connection = readPool.acquireConnection();
+        try {
+            return executeOn(connection, callback, "Database read failed");
+        } finally {
+            readPool.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Like executeReadOnly, but every statement the callback runs reads the same
+     * snapshot: it runs in one read-only REPEATABLE READ transaction. Use it when a
+     * report combines several queries, such as a count and a breakdown, that must agree.
+     * Inside a transaction the callback runs on the transaction's connection instead.
+     * @throws ConnectionPoolTimeoutException if the pool had no free connection in time
+     */
+    public <T> T executeReadOnlySnapshot(ConnectionCallback<T> callback) {
+        TransactionContext transaction = currentTransaction.get();
+        if (transaction != null) {
+            return executeOn(transaction.connection, callback, "Database read failed");
+        }
+
+        // Plain statements rather than the JDBC setters: three round trips instead of
+        // eight, and the connection's session settings are left as they were
+        Connection connection = readPool.acquireConnection();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ"); // Next transaction only
+            stmt.execute("START TRANSACTION READ ONLY");
+            try {
+                T result = callback.execute(connection);
+                stmt.execute("COMMIT");
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    stmt.execute("ROLLBACK");
+                } catch (SQLException rollbackEx) {
+                    // Nothing was written
+                }
+                throw e;
             }
+        } catch (SQLException e) {
+            throw new RuntimeException("Database read failed", e);
+        } finally {
+            readPool.releaseConnection(connection);
         }
     }
 
+    /**
+     * Run the callback in a single database transaction.
+     * Inside executeInTransaction the callback joins the outer transaction and
+     * is committed or rolled back with it.
+     * @throws ConnectionPoolTimeoutException if the pool had no free connection in time
+     */
     public void executeWithTransaction(TransactionCallback callback) {
-        Connection connection = null;
+        TransactionContext transaction = currentTransaction.get();
+        if (transaction != null) {
+            executeOn(transaction.connection, connection -> {
+                callback.execute(connection);
+                return null;
+            }, "Transaction failed");
+            return;
+        }
+
+        Connection connection = pool.acquireConnection();
         try {
-            connection = pool.acquireConnection();
             connection.setAutoCommit(false);
 
             callback.execute(connection);
 
             connection.commit();
         } catch (Exception e) {
-            if (connection != null) {
-                try {
-                    connection.rollback();
-                } catch (SQLException rollbackEx) {
-                    // Log rollback failure
-                }
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                // Log rollback failure
             }
             throw new RuntimeException("Transaction failed", e);
         } finally {
-            if (connection != null) {
-                try {
-                    connection.setAutoCommit(true);
-                } catch (SQLException e) {
-                    // Log error
-                }
-                pool.releaseConnection(connection);
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                // Log error
             }
+            pool.releaseConnection(connection);
+        }
+    }
+
+    private static <T> T executeOn(Connection connection, ConnectionCallback<T> callback, String failureMessage) {
+        try {
+            return callback.execute(connection);
+        } catch (SQLException e) {
+            throw new RuntimeException(failureMessage, e);
         }
     }
 
@@ -63,4 +299,16 @@ public class ConnectionManager {
     public interface TransactionCallback {
         void execute(Connection connection) throws SQLException;
     }
-}
\ No newline at end of file
+
+    /**
+     * State of the unit of work bound to a thread
+     */
+    private static final class TransactionContext {
+        private final Connection connection;
+        private final List<Runnable> afterCompletion = new ArrayList<>();
+
+        private TransactionContext(Connection connection) {
+            this.connection = connection;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.syos.infrastructure.persistence.connection;
+
+/**
+ * Thrown when no pooled connection became available within the acquire timeout
+ */
+public class ConnectionPoolTimeoutException extends RuntimeException {
+    private final long waitedMillis;
+
+    public ConnectionPoolTimeoutException(String message, long waitedMillis) {
+        super(message);
+        this.waitedMillis = waitedMillis;
+    }
+
+    public long getWaitedMillis() {
+        return waitedMillis;
+    }
+}
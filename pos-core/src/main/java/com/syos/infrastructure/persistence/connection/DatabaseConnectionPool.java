@@ -1,24 +1,111 @@
 package com.syos.infrastructure.persistence.connection;
 
 import com.syos.infrastructure.config.DatabaseConfig;
+import com.syos.shared.utils.Histogram;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Bounded JDBC connection pool.
+ * At most maxPoolSize connections are handed out at once; further callers wait
+ * in FIFO order (fair semaphore) until a connection is released or the acquire
+ * timeout from DatabaseConfig expires.
+ *
+ * Idle connections are checked by a background housekeeping thread rather than
+ * on borrow: it validates them with isValid, retires connections past their
+ * max lifetime or idle timeout, and tops the pool back up to its minimum.
+ *
+ * Each connection carries its own LRU PreparedStatement cache (see
+ * StatementCachingConnection), so gateways can keep calling prepareStatement
+ * and close without re-parsing the same SQL.
+ *
+ * Every checked-out connection records when, by which thread and (when leak
+ * detection is on) from where it was borrowed. Connections held longer than
+ * db.pool.leakDetectionThresholdMs are reported on stderr with the borrower's
+ * stack trace.
+ *
+ * getInstance() is the primary (read/write) pool. getReadInstance() is a
+ * separately sized pool on the replica configured as db.replica.url, or the
+ * primary pool when no replica is configured.
+ */
 public class DatabaseConnectionPool {
     private static DatabaseConnectionPool instance;
-    private final ConcurrentLinkedQueue<Connection> availableConnections;
-    private final AtomicInteger activeConnections;
+    private static DatabaseConnectionPool readInstance;
+    // Most recently returned connections sit at the head, so stale ones drift to the tail
+    private final LinkedBlockingDeque<PooledConnection> availableConnections;
+    private final Map<Connection, PooledConnection> borrowedConnections;
+    private final AtomicInteger activeConnections; // physical connections currently open
+    private final Semaphore borrowPermits;
+    private final ScheduledExecutorService housekeeper;
     private final DatabaseConfig config;
+    private final String name;
+    private final String url;
     private final int maxPoolSize;
+    private final int initialPoolSize;
+    private final int minIdle;
+    private final long acquireTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final long leakDetectionThresholdMillis;
 
-    private DatabaseConnectionPool() {
+    // Wait-time counters
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    // Distributions in microseconds
+    private final Histogram waitTimeHistogram = new Histogram();
+    private final Histogram borrowDurationHistogram = new Histogram();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    // Housekeeping counters
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong retiredCount = new AtomicLong();
+
+    // Statement cache counters, shared by every connection's cache
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    private DatabaseConnectionPool(String name, String url, int initialPoolSize, int minIdle, int maxPoolSize) {
         this.config = DatabaseConfig.getInstance();
-        this.maxPoolSize = config.getMaxPoolSize();
-        this.availableConnections = new ConcurrentLinkedQueue<>();
+        this.name = name;
+        this.url = url;
+        this.maxPoolSize = maxPoolSize;
+        this.initialPoolSize = Math.min(initialPoolSize, maxPoolSize);
+        this.minIdle = Math.min(minIdle, maxPoolSize);
+        this.acquireTimeoutMillis = config.getAcquireTimeoutMillis();
+        this.maxLifetimeMillis = config.getMaxLifetimeMillis();
+        this.idleTimeoutMillis = config.getIdleTimeoutMillis();
+        this.validationTimeoutSeconds = config.getValidationTimeoutSeconds();
+        this.statementCacheSize = config.getStatementCacheSize();
+        this.leakDetectionThresholdMillis = config.getLeakDetectionThresholdMillis();
+        this.availableConnections = new LinkedBlockingDeque<>();
+        this.borrowedConnections = new ConcurrentHashMap<>();
         this.activeConnections = new AtomicInteger(0);
+        this.borrowPermits = new Semaphore(maxPoolSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
 
         try {
             initializePool();
@@ -34,20 +121,63 @@ public class DatabaseConnectionPool {
             System.err.println("3. Database 'syos_db' does not exist");
             System.err.println("4. MySQL port is not 3306");
             System.err.println("\nDebug Information:");
-            System.err.println("URL: " + config.getConnectionUrl());
+            System.err.println("Pool: " + name);
+            System.err.println("URL: " + url);
             System.err.println("Username: " + config.getUsername());
             System.err.println("=".repeat(60));
+            housekeeper.shutdownNow();
             throw new RuntimeException("Failed to create database connection", e);
         }
+
+        long interval = config.getHousekeepingIntervalMillis();
+        housekeeper.scheduleWithFixedDelay(this::runHousekeeping, interval, interval, TimeUnit.MILLISECONDS);
+
+        if (leakDetectionThresholdMillis > 0) {
+            long leakCheckInterval = Math.max(1000, leakDetectionThresholdMillis / 2);
+            housekeeper.scheduleWithFixedDelay(this::detectLeaks, leakCheckInterval, leakCheckInterval,
+                    TimeUnit.MILLISECONDS);
+        }
     }
 
     public static synchronized DatabaseConnectionPool getInstance() {
         if (instance == null) {
-            instance = new DatabaseConnectionPool();
+            DatabaseConfig config = DatabaseConfig.getInstance();
+            instance = new DatabaseConnectionPool("primary", config.getConnectionUrl(),
+                    config.getInitialPoolSize(), config.getMinIdle(), config.getMaxPoolSize());
         }
         return instance;
     }
 
+    /**
+     * Pool for read-only work such as reports and dashboards.
+     * Falls back to the primary pool when no replica URL is configured.
+     */
+    public static synchronized DatabaseConnectionPool getReadInstance() {
+        if (readInstance == null) {
+            DatabaseConfig config = DatabaseConfig.getInstance();
+            if (config.hasReplica()) {
+                readInstance = new DatabaseConnectionPool("replica", config.getReplicaConnectionUrl(),
+                        config.getReplicaInitialPoolSize(), config.getReplicaMinIdle(),
+                        config.getReplicaMaxPoolSize());
+            } else {
+                readInstance = getInstance();
+            }
+        }
+        return readInstance;
+    }
+
+    /**
+     * Shut down the primary pool and, if separate, the replica pool
+     */
+    public static synchronized void shutdownAll() {
+        if (readInstance != null && readInstance != instance) {
+            readInstance.shutdown();
+        }
+        if (instance != null) {
+            instance.shutdown();
+        }
+    }
+
     private void initializePool() {
         try {
             // Load MySQL driver
@@ -58,12 +188,11 @@ public class DatabaseConnectionPool {
             testConnection();
 
             // Create initial connections
-            int initialSize = config.getInitialPoolSize();
-            System.out.println("Creating " + initialSize + " initial connections...");
+            System.out.println("Creating " + initialPoolSize + " initial connections...");
 
-            for (int i = 0; i < initialSize; i++) {
-                Connection conn = createConnection();
-                availableConnections.offer(conn);
+            for (int i = 0; i < initialPoolSize; i++) {
+                PooledConnection pooled = openCountedConnection();
+                availableConnections.offerLast(pooled);
                 System.out.println("Connection " + (i + 1) + " created");
             }
 
@@ -77,7 +206,7 @@ public class DatabaseConnectionPool {
     private void testConnection() {
         System.out.println("Testing database connection...");
         try (Connection conn = DriverManager.getConnection(
-                config.getConnectionUrl(),
+                url,
                 config.getUsername(),
                 config.getPassword())) {
 
@@ -106,69 +235,273 @@ public class DatabaseConnectionPool {
         }
     }
 
+    /**
+     * Open a connection that is not part of the pool, for work that must never wait
+     * on or hold a pooled connection. The caller owns it and must close it.
+     */
+    public Connection openDedicatedConnection() {
+        return openConnection();
+    }
+
     private Connection createConnection() {
+        Connection conn = openConnection();
+        if (statementCacheSize > 0) {
+            return StatementCachingConnection.wrap(conn,
+                    new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses));
+        }
+        return conn;
+    }
+
+    private Connection openConnection() {
         try {
-            Connection conn = DriverManager.getConnection(
-                    config.getConnectionUrl(),
-                    config.getUsername(),
-                    config.getPassword()
-            );
+            Properties info = new Properties();
+            info.setProperty("user", config.getUsername());
+            info.setProperty("password", config.getPassword());
+            if (config.isServerPreparedStatements()) {
+                // Statements stay prepared on the server for as long as our cache holds them
+                info.setProperty("useServerPrepStmts", "true");
+            }
+            if (config.isRewriteBatchedStatements()) {
+                // Send executeBatch as multi-row inserts / multi-statement updates in one round-trip
+                info.setProperty("rewriteBatchedStatements", "true");
+            }
+            Connection conn = DriverManager.getConnection(url, info);
 
             // Set connection properties
             conn.setAutoCommit(true);
-
             return conn;
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create database connection", e);
         }
     }
 
+    /**
+     * Borrow a connection, waiting up to the configured acquire timeout
+     * @return An open connection that must be handed back via releaseConnection
+     * @throws ConnectionPoolTimeoutException if no connection became free in time
+     */
     public Connection acquireConnection() {
-        Connection connection = availableConnections.poll();
+        return acquireConnection(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
 
-        if (connection == null) {
-            if (activeConnections.get() < maxPoolSize) {
-                connection = createConnection();
-                activeConnections.incrementAndGet();
-            } else {
-                throw new RuntimeException("Connection pool exhausted");
+    /**
+     * Borrow a connection, waiting up to the given timeout.
+     * Waiting callers are served in arrival order.
+     */
+    public Connection acquireConnection(long timeout, TimeUnit unit) {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = borrowPermits.tryAcquire(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database connection", e);
+        }
+
+        long waited = System.nanoTime() - start;
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(waited);
+            throw new ConnectionPoolTimeoutException(
+                    "Timed out after " + waitedMillis + " ms waiting for a database connection (max pool size " +
+                            maxPoolSize + ")", waitedMillis);
+        }
+        recordWait(waited);
+
+        long deadline = start + unit.toNanos(timeout);
+        try {
+            PooledConnection pooled = takeOrCreateConnection(deadline);
+            pooled.markBorrowed(leakDetectionThresholdMillis > 0);
+            borrowedConnections.put(pooled.getConnection(), pooled);
+            return pooled.getConnection();
+        } catch (RuntimeException e) {
+            borrowPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Hand out an idle connection, or open a new one while below maxPoolSize.
+     * Connections are not validated here; the housekeeper does that in the background.
+     */
+    private PooledConnection takeOrCreateConnection(long deadline) {
+        while (true) {
+            PooledConnection pooled = availableConnections.pollFirst();
+            if (pooled != null) {
+                return pooled;
+            }
+            if (tryReserveSlot()) {
+                return openReservedConnection();
+            }
+
+            // Every slot is open but momentarily held by the housekeeper; wait for it to come back
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                timeoutCount.incrementAndGet();
+                throw new ConnectionPoolTimeoutException("Timed out waiting for an idle database connection",
+                        acquireTimeoutMillis);
             }
-        } else {
             try {
-                if (connection.isClosed()) {
-                    connection = createConnection();
-                }
-            } catch (SQLException e) {
-                connection = createConnection();
+                pooled = availableConnections.pollFirst(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(10)),
+                        TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a database connection", e);
+            }
+            if (pooled != null) {
+                return pooled;
             }
         }
+    }
 
-        return connection;
+    private boolean tryReserveSlot() {
+        int current;
+        do {
+            current = activeConnections.get();
+            if (current >= maxPoolSize) {
+                return false;
+            }
+        } while (!activeConnections.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private PooledConnection openCountedConnection() {
+        activeConnections.incrementAndGet();
+        return openReservedConnection();
+    }
+
+    private PooledConnection openReservedConnection() {
+        try {
+            return new PooledConnection(createConnection());
+        } catch (RuntimeException e) {
+            activeConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void discardConnection(PooledConnection pooled) {
+        activeConnections.decrementAndGet();
+        pooled.closeQuietly();
+    }
+
+    private void recordWait(long waitNanos) {
+        acquireCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        waitTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(waitNanos));
     }
 
     public void releaseConnection(Connection connection) {
-        if (connection != null) {
-            try {
-                if (!connection.isClosed()) {
-                    availableConnections.offer(connection);
-                } else {
-                    activeConnections.decrementAndGet();
+        if (connection == null) {
+            return;
+        }
+        PooledConnection pooled = borrowedConnections.remove(connection);
+        if (pooled == null) {
+            return; // Not ours, or already released
+        }
+        try {
+            boolean reportedAsLeak = pooled.isLeakReported();
+            long heldNanos = pooled.markReturned();
+            borrowDurationHistogram.record(TimeUnit.NANOSECONDS.toMicros(heldNanos));
+            if (reportedAsLeak) {
+                System.err.println("Connection previously reported as leaked was returned after " +
+                        TimeUnit.NANOSECONDS.toMillis(heldNanos) + " ms");
+            }
+
+            if (pooled.isClosed()) {
+                discardConnection(pooled);
+            } else {
+                availableConnections.offerFirst(pooled);
+            }
+        } finally {
+            borrowPermits.release();
+        }
+    }
+
+    /**
+     * One housekeeping pass: validate and retire idle connections, then refill.
+     * Runs on the housekeeper thread only.
+     */
+    private void runHousekeeping() {
+        try {
+            long now = System.currentTimeMillis();
+            List<PooledConnection> snapshot = new ArrayList<>(availableConnections);
+
+            // Walk oldest-returned first
+            for (int i = snapshot.size() - 1; i >= 0; i--) {
+                PooledConnection pooled = snapshot.get(i);
+
+                // Take a borrow permit so a connection under inspection counts against maxPoolSize
+                if (!borrowPermits.tryAcquire()) {
+                    break; // Pool is busy serving callers; try again next pass
+                }
+                try {
+                    if (!availableConnections.remove(pooled)) {
+                        continue; // Borrowed in the meantime
+                    }
+                    if (pooled.getAgeMillis(now) > maxLifetimeMillis) {
+                        retiredCount.incrementAndGet();
+                        discardConnection(pooled);
+                    } else if (pooled.getIdleMillis(now) > idleTimeoutMillis
+                            && availableConnections.size() >= minIdle) {
+                        retiredCount.incrementAndGet();
+                        discardConnection(pooled);
+                    } else if (!pooled.isValid(validationTimeoutSeconds)) {
+                        evictedCount.incrementAndGet();
+                        discardConnection(pooled);
+                    } else {
+                        availableConnections.offerLast(pooled);
+                    }
+                } finally {
+                    borrowPermits.release();
                 }
-            } catch (SQLException e) {
-                activeConnections.decrementAndGet();
             }
+
+            fillPool();
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
         }
     }
 
-    public void shutdown() {
-        System.out.println("Shutting down connection pool...");
-        Connection connection;
-        while ((connection = availableConnections.poll()) != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                // Log error
+    /**
+     * Report connections held longer than the leak detection threshold, once each
+     */
+    private void detectLeaks() {
+        long now = System.nanoTime();
+        for (PooledConnection pooled : borrowedConnections.values()) {
+            long heldMillis = pooled.getHeldMillis(now);
+            if (heldMillis < leakDetectionThresholdMillis || pooled.isLeakReported()) {
+                continue;
             }
+            pooled.setLeakReported();
+            leakCount.incrementAndGet();
+
+            System.err.println("Possible connection leak: held for " + heldMillis + " ms by thread '" +
+                    pooled.getBorrowThread() + "' (threshold " + leakDetectionThresholdMillis + " ms)");
+            Throwable borrowSite = pooled.getBorrowSite();
+            if (borrowSite != null) {
+                borrowSite.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Open connections until there are at least minIdle idle ones, never exceeding maxPoolSize.
+     * initialPoolSize only sizes the pool at startup, so idle connections above minIdle can retire.
+     */
+    private void fillPool() {
+        while (availableConnections.size() < minIdle && tryReserveSlot()) {
+            availableConnections.offerLast(openReservedConnection());
+        }
+    }
+
+    public void shutdown() {
+        System.out.println("Shutting down " + name + " connection pool...");
+        System.out.println(getStatistics());
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = availableConnections.poll()) != null) {
+            discardConnection(pooled);
         }
         System.out.println("Connection pool shut down successfully");
     }
@@ -180,4 +513,108 @@ public class DatabaseConnectionPool {
     public int getActiveConnectionsCount() {
         return activeConnections.get();
     }
+
+    /**
+     * Connections currently checked out
+     */
+    public int getInUseConnectionsCount() {
+        return borrowedConnections.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Number of callers currently queued for a connection
+     */
+    public int getWaitingThreadsCount() {
+        return borrowPermits.getQueueLength();
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * Time callers waited for a connection, in microseconds
+     */
+    public Histogram getWaitTimeHistogram() {
+        return waitTimeHistogram;
+    }
+
+    /**
+     * Time connections were held between acquire and release, in microseconds
+     */
+    public Histogram getBorrowDurationHistogram() {
+        return borrowDurationHistogram;
+    }
+
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * Describe every checked-out connection: borrowing thread, since when and for how long
+     */
+    public List<String> describeBorrowedConnections() {
+        long now = System.nanoTime();
+        List<String> descriptions = new ArrayList<>();
+        for (PooledConnection pooled : borrowedConnections.values()) {
+            descriptions.add("thread '" + pooled.getBorrowThread() + "' since " +
+                    new Timestamp(pooled.getBorrowedAtMillis()) + " (" + pooled.getHeldMillis(now) + " ms)");
+        }
+        return descriptions;
+    }
+
+    /**
+     * Point-in-time view of the pool's gauges and counters
+     */
+    public PoolStatistics getStatistics() {
+        return new PoolStatistics(
+                getInUseConnectionsCount(), getAvailableConnectionsCount(), getWaitingThreadsCount(),
+                getActiveConnectionsCount(), maxPoolSize,
+                getAcquireCount(), getTimeoutCount(), getLeakCount(), getEvictedCount(), getRetiredCount(),
+                getStatementCacheHits(), getStatementCacheMisses(),
+                waitTimeHistogram.getPercentile(50), waitTimeHistogram.getPercentile(99),
+                borrowDurationHistogram.getPercentile(50), borrowDurationHistogram.getPercentile(99));
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    /**
+     * Idle connections closed because they failed validation
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Idle connections closed for exceeding max lifetime or idle timeout
+     */
+    public long getRetiredCount() {
+        return retiredCount.get();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.syos.infrastructure.persistence.connection;
+
+/**
+ * Snapshot of DatabaseConnectionPool gauges and counters.
+ * Wait and borrow figures are in microseconds.
+ */
+public class PoolStatistics {
+    public final int inUse;
+    public final int idle;
+    public final int pending;
+    public final int total;
+    public final int maxPoolSize;
+    public final long acquireCount;
+    public final long timeoutCount;
+    public final long leakCount;
+    public final long evictedCount;
+    public final long retiredCount;
+    public final long statementCacheHits;
+    public final long statementCacheMisses;
+    public final long waitP50Micros;
+    public final long waitP99Micros;
+    public final long borrowP50Micros;
+    public final long borrowP99Micros;
+
+    public PoolStatistics(int inUse, int idle, int pending, int total, int maxPoolSize,
+                          long acquireCount, long timeoutCount, long leakCount,
+                          long evictedCount, long retiredCount,
+                          long statementCacheHits, long statementCacheMisses,
+                          long waitP50Micros, long waitP99Micros,
+                          long borrowP50Micros, long borrowP99Micros) {
+        this.inUse = inUse;
+        this.idle = idle;
+        this.pending = pending;
+        this.total = total;
+        this.maxPoolSize = maxPoolSize;
+        this.acquireCount = acquireCount;
+        this.timeoutCount = timeoutCount;
+        this.leakCount = leakCount;
+        this.evictedCount = evictedCount;
+        this.retiredCount = retiredCount;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.waitP50Micros = waitP50Micros;
+        this.waitP99Micros = waitP99Micros;
+        this.borrowP50Micros = borrowP50Micros;
+        this.borrowP99Micros = borrowP99Micros;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStatistics[inUse=" + inUse + ", idle=" + idle + ", pending=" + pending +
+                ", total=" + total + "/" + maxPoolSize +
+                ", acquires=" + acquireCount + ", timeouts=" + timeoutCount + ", leaks=" + leakCount +
+                ", evicted=" + evictedCount + ", retired=" + retiredCount +
+                ", stmtCache=" + statementCacheHits + "/" + (statementCacheHits + statementCacheMisses) +
+                ", waitP50/P99=" + waitP50Micros + "/" + waitP99Micros + "us" +
+                ", borrowP50/P99=" + borrowP50Micros + "/" + borrowP99Micros + "us]";
+    }
+}
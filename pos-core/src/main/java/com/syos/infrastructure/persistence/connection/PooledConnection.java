@@ -0,0 +1,109 @@
+package com.syos.infrastructure.persistence.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bookkeeping for one physical connection owned by DatabaseConnectionPool.
+ * The connection handed to callers may be a statement-caching wrapper around it.
+ */
+class PooledConnection {
+    private final Connection connection;
+    private final long createdAt;
+    private volatile long lastReturnedAt;
+
+    // Set while the connection is checked out
+    private volatile long borrowedAtNanos;
+    private volatile long borrowedAtMillis;
+    private volatile String borrowThread;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+
+    PooledConnection(Connection connection) {
+        this.connection = connection;
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = createdAt;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    long getAgeMillis(long now) {
+        return now - createdAt;
+    }
+
+    long getIdleMillis(long now) {
+        return now - lastReturnedAt;
+    }
+
+    /**
+     * Record who borrowed the connection
+     * @param captureStack Whether to keep the borrower's stack trace for leak reports
+     */
+    void markBorrowed(boolean captureStack) {
+        this.borrowedAtNanos = System.nanoTime();
+        this.borrowedAtMillis = System.currentTimeMillis();
+        this.borrowThread = Thread.currentThread().getName();
+        this.borrowSite = captureStack ? new Throwable("Connection borrowed here") : null;
+        this.leakReported = false;
+    }
+
+    /**
+     * @return How long the connection was held, in nanoseconds
+     */
+    long markReturned() {
+        this.lastReturnedAt = System.currentTimeMillis();
+        this.borrowThread = null;
+        this.borrowSite = null;
+        return System.nanoTime() - borrowedAtNanos;
+    }
+
+    long getHeldMillis(long nowNanos) {
+        return (nowNanos - borrowedAtNanos) / 1_000_000;
+    }
+
+    long getBorrowedAtMillis() {
+        return borrowedAtMillis;
+    }
+
+    String getBorrowThread() {
+        return borrowThread;
+    }
+
+    Throwable getBorrowSite() {
+        return borrowSite;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void setLeakReported() {
+        this.leakReported = true;
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    boolean isClosed() {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    void closeQuietly() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Already unusable
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.syos.infrastructure.persistence.connection;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for a single physical connection.
+ * Keyed by SQL text and generated-keys mode. A statement is removed from the
+ * cache while it is in use and put back when the caller closes it.
+ *
+ * Not thread-safe: a pooled connection is only used by one thread at a time.
+ */
+class StatementCache {
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+
+    StatementCache(int maxSize, LongAdder hits, LongAdder misses) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Take a cached statement out of the cache
+     * @return The statement, or null on a cache miss
+     */
+    PreparedStatement take(Key key) {
+        PreparedStatement statement = statements.remove(key);
+        if (statement != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return statement;
+    }
+
+    /**
+     * Return a statement after use. Closes it if an equivalent one is already cached.
+     */
+    void offer(Key key, PreparedStatement statement) {
+        if (statements.containsKey(key)) {
+            closeQuietly(statement);
+            return;
+        }
+        statements.put(key, statement);
+    }
+
+    void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Statement is being discarded anyway
+        }
+    }
+
+    static final class Key {
+        private final String sql;
+        private final int autoGeneratedKeys;
+
+        Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return autoGeneratedKeys == key.autoGeneratedKeys && sql.equals(key.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, autoGeneratedKeys);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.syos.infrastructure.persistence.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection wrapper handed out by the pool.
+ * prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) are served
+ * from a StatementCache, and closing the returned statement puts it back in the
+ * cache instead of closing it on the server. Every other call goes straight to
+ * the physical connection.
+ */
+final class StatementCachingConnection implements InvocationHandler {
+    private final Connection physical;
+    private final StatementCache cache;
+    private Connection proxy;
+
+    private StatementCachingConnection(Connection physical, StatementCache cache) {
+        this.physical = physical;
+        this.cache = cache;
+    }
+
+    static Connection wrap(Connection physical, StatementCache cache) {
+        StatementCachingConnection handler = new StatementCachingConnection(physical, cache);
+        handler.proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+        return handler.proxy;
+    }
+
+    @Override
+    public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "prepareStatement":
+                if (args.length == 1) {
+                    return prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (args.length == 2 && method.getParameterTypes()[1] == int.class) {
+                    return prepare((String) args[0], (Integer) args[1]);
+                }
+                break;
+            case "close":
+                cache.clear();
+                break;
+            case "equals":
+                return target == args[0];
+            case "hashCode":
+                return System.identityHashCode(target);
+            case "toString":
+                return "StatementCachingConnection[" + physical + "]";
+            default:
+                break;
+        }
+        return delegate(physical, method, args);
+    }
+
+    private PreparedStatement prepare(String sql, int autoGeneratedKeys) throws Exception {
+        StatementCache.Key key = new StatementCache.Key(sql, autoGeneratedKeys);
+        PreparedStatement statement = cache.take(key);
+        if (statement == null) {
+            statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                    ? physical.prepareStatement(sql)
+                    : physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                new CachedStatement(key, statement));
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Logical statement handed to callers; close() returns the physical statement to the cache.
+     * Settings a caller changes (fetch size, max rows, query timeout...) are put back to the
+     * values they had before, so a streaming fetch size or a row limit does not leak into the
+     * next borrower of the same SQL. Settings that cannot be read back keep the statement out
+     * of the cache instead.
+     */
+    private final class CachedStatement implements InvocationHandler {
+        private final StatementCache.Key key;
+        private final PreparedStatement statement;
+        private final Map<String, Number> originalSettings = new HashMap<>();
+        private boolean unrestorable;
+        private boolean closed;
+
+        CachedStatement(StatementCache.Key key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    returnToCache();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return proxy;
+                case "equals":
+                    return target == args[0];
+                case "hashCode":
+                    return System.identityHashCode(target);
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    rememberSetting(method.getName());
+                    return delegate(statement, method, args);
+            }
+        }
+
+        /**
+         * Record a setting's value before the caller first changes it
+         */
+        private void rememberSetting(String methodName) throws SQLException {
+            switch (methodName) {
+                case "setFetchSize":
+                    originalSettings.putIfAbsent("fetchSize", statement.getFetchSize());
+                    break;
+                case "setFetchDirection":
+                    originalSettings.putIfAbsent("fetchDirection", statement.getFetchDirection());
+                    break;
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                    originalSettings.putIfAbsent("maxRows", statement.getLargeMaxRows());
+                    break;
+                case "setMaxFieldSize":
+                    originalSettings.putIfAbsent("maxFieldSize", statement.getMaxFieldSize());
+                    break;
+                case "setQueryTimeout":
+                    originalSettings.putIfAbsent("queryTimeout", statement.getQueryTimeout());
+                    break;
+                case "setEscapeProcessing":
+                case "setCursorName":
+                case "setPoolable":
+                case "closeOnCompletion":
+                    unrestorable = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void restoreSettings() throws SQLException {
+            for (Map.Entry<String, Number> setting : originalSettings.entrySet()) {
+                Number value = setting.getValue();
+                switch (setting.getKey()) {
+                    case "fetchSize":
+                        statement.setFetchSize(value.intValue());
+                        break;
+                    case "fetchDirection":
+                        statement.setFetchDirection(value.intValue());
+                        break;
+                    case "maxRows":
+                        statement.setLargeMaxRows(value.longValue());
+                        break;
+                    case "maxFieldSize":
+                        statement.setMaxFieldSize(value.intValue());
+                        break;
+                    case "queryTimeout":
+                        statement.setQueryTimeout(value.intValue());
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void returnToCache() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (statement.isClosed() || physical.isClosed()) {
+                    return;
+                }
+                if (unrestorable) {
+                    statement.close();
+                    return;
+                }
+                restoreSettings();
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                cache.offer(key, statement);
+            } catch (SQLException e) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // Statement is being discarded anyway
+                }
+            }
+        }
+    }
+}
@@ -2,30 +2,49 @@ package com.syos.infrastructure.persistence.gateways;
 
 import com.syos.domain.entities.*;
 import com.syos.domain.valueobjects.*;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
 import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
 import com.syos.infrastructure.persistence.mappers.BillMapper;
+import com.syos.infrastructure.persistence.mappers.ItemMapper;
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Gateway for Bill entity database operations
  * Implements the Table Data Gateway pattern
  */
 public class BillGateway extends OracleDatabaseGateway<Bill> {
+    private static final String HEADER_COLUMNS = "bill_number, bill_date, discount, cash_tendered, transaction_type";
+    private static final int IN_BATCH_SIZE = 500; // Keys per IN (...) list
+    private static final int STREAM_PAGE_SIZE = 500; // Bills per page in streamAll; one IN batch of lines
+
     private final BillMapper mapper;
+    private final ItemMapper itemMapper;
+    private final SalesRollupGateway salesRollup;
 
     public BillGateway(DatabaseConnectionPool pool) {
         super();
         this.mapper = new BillMapper();
+        this.itemMapper = new ItemMapper();
+        this.salesRollup = new SalesRollupGateway();
     }
 
     @Override
     protected String getInsertSQL() {
-        return "INSERT INTO bills (bill_date, total_amount, discount, cash_tendered, change_amount, transaction_type) " +
-                "VALUES (?, ?, ?, ?, ?, ?)";
+        return "INSERT INTO bills (bill_number, bill_date, total_amount, discount, cash_tendered, change_amount, transaction_type) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
     }
 
     @Override
@@ -45,12 +64,13 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
 
     @Override
     protected void setInsertParameters(PreparedStatement stmt, Bill bill) throws SQLException {
-        stmt.setTimestamp(1, Timestamp.valueOf(bill.getBillDate()));
-        stmt.setBigDecimal(2, bill.getTotalAmount().getValue());
-        stmt.setBigDecimal(3, bill.getDiscount().getValue());
-        stmt.setBigDecimal(4, bill.getCashTendered().getValue());
-        stmt.setBigDecimal(5, bill.getChange().getValue());
-        stmt.setString(6, bill.getTransactionType().name());
+        stmt.setInt(1, bill.getBillNumber().getValue());
+        stmt.setTimestamp(2, Timestamp.valueOf(bill.getBillDate()));
+        stmt.setBigDecimal(3, bill.getTotalAmount().getValue());
+        stmt.setBigDecimal(4, bill.getDiscount().getValue());
+        stmt.setBigDecimal(5, bill.getCashTendered().getValue());
+        stmt.setBigDecimal(6, bill.getChange().getValue());
+        stmt.setString(7, bill.getTransactionType().name());
     }
 
     @Override
@@ -65,70 +85,78 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
 
     @Override
     protected Bill mapResultWithId(Bill bill, Long id) {
-        // Create new bill with generated ID
-        return new Bill.Builder()
-                .withBillNumber(id.intValue())
-                .withDate(bill.getBillDate())
-                .withItems(bill.getItems())
-                .withDiscount(bill.getDiscount().getValue())
-                .withCashTendered(bill.getCashTendered().getValue())
-                .withTransactionType(bill.getTransactionType())
-                .build();
+        // Bills are inserted with their allocated number, not an auto-generated one
+        return bill;
+    }
+
+    /**
+     * Deleted bills take their lines with them (ON DELETE CASCADE); rebuild the
+     * sales rollup for their days in the same transaction
+     */
+    @Override
+    protected ConnectionManager.TransactionCallback beforeDelete(Connection connection, List<Long> ids)
+            throws SQLException {
+        Set<LocalDate> days = new LinkedHashSet<>();
+        for (int start = 0; start < ids.size(); start += IN_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + IN_BATCH_SIZE, ids.size()));
+            String sql = "SELECT DISTINCT DATE(bill_date) as sale_date FROM bills WHERE bill_number IN (" +
+                    placeholders(chunk.size()) + ")";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        days.add(rs.getDate("sale_date").toLocalDate());
+                    }
+                }
+            }
+        }
+        return days.isEmpty() ? null : sameConnection -> salesRollup.rebuildDays(sameConnection, days);
     }
 
     /**
-     * Save bill with its items in a transaction
-     * @param bill The bill to save with items
-     * @return The database-generated bill number
+     * Save bill with its items in a transaction, and add it to the daily sales rollup
+     * @param bill The bill to save with items; its bill number must already be allocated
+     * @return The bill number
      */
     public int saveBillWithItems(Bill bill) {
-        // Use array as holder to capture the generated ID from the transaction
-        final int[] billIdHolder = new int[1];
+        int billNumber = bill.getBillNumber().getValue();
 
         connectionManager.executeWithTransaction(connection -> {
             // Save bill
-            String billSql = "INSERT INTO bills (bill_date, total_amount, discount, cash_tendered, change_amount, transaction_type) " +
-                    "VALUES (?, ?, ?, ?, ?, ?)";
-
-            int billId;
-            try (PreparedStatement stmt = connection.prepareStatement(billSql, Statement.RETURN_GENERATED_KEYS)) {
-                stmt.setTimestamp(1, Timestamp.valueOf(bill.getBillDate()));
-                stmt.setBigDecimal(2, bill.getTotalAmount().getValue());
-                stmt.setBigDecimal(3, bill.getDiscount().getValue());
-                stmt.setBigDecimal(4, bill.getCashTendered().getValue());
-                stmt.setBigDecimal(5, bill.getChange().getValue());
-                stmt.setString(6, bill.getTransactionType().name());
-
+            try (PreparedStatement stmt = connection.prepareStatement(getInsertSQL())) {
+                setInsertParameters(stmt, bill);
                 stmt.executeUpdate();
-
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        billId = generatedKeys.getInt(1);
-                        billIdHolder[0] = billId; // Store in holder
-                    } else {
-                        throw new SQLException("Failed to get generated bill ID");
-                    }
-                }
             }
 
             // Save bill items
             String itemSql = "INSERT INTO bill_items (bill_number, item_code, quantity, unit_price, total_price) " +
                     "VALUES (?, ?, ?, ?, ?)";
 
-            try (PreparedStatement stmt = connection.prepareStatement(itemSql)) {
+            long[] lineIds = new long[bill.getItems().size()];
+            try (PreparedStatement stmt = connection.prepareStatement(itemSql, Statement.RETURN_GENERATED_KEYS)) {
                 for (BillItem billItem : bill.getItems()) {
-                    stmt.setInt(1, billId);
+                    stmt.setInt(1, billNumber);
                     stmt.setString(2, billItem.getItem().getCode().getValue());
                     stmt.setInt(3, billItem.getQuantity().getValue());
-                    stmt.setBigDecimal(4, billItem.getItem().getPrice().getValue());
+                    stmt.setBigDecimal(4, billItem.getUnitPrice().getValue());
                     stmt.setBigDecimal(5, billItem.getTotalPrice().getValue());
                     stmt.addBatch();
                 }
                 stmt.executeBatch();
+
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    for (int i = 0; i < lineIds.length && generatedKeys.next(); i++) {
+                        lineIds[i] = generatedKeys.getLong(1);
+                    }
+                }
             }
+
+            salesRollup.recordBill(connection, bill, lineIds);
         });
 
-        return billIdHolder[0];
+        return billNumber;
     }
 
     /**
@@ -137,108 +165,94 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
      * @return List of bills from that date
      */
     public List<Bill> findByDate(LocalDate date) {
-        return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT b.*, bi.*, i.* FROM bills b " +
-                    "LEFT JOIN bill_items bi ON b.bill_number = bi.bill_number " +
-                    "LEFT JOIN items i ON bi.item_code = i.code " +
-                    "WHERE DATE(b.bill_date) = ? " +
-                    "ORDER BY b.bill_number, bi.id";
-
-            List<Bill> bills = new ArrayList<>();
-            Bill.Builder currentBuilder = null;
-            int lastBillNumber = -1;
-
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setDate(1, Date.valueOf(date));
-
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        int billNumber = rs.getInt("bill_number");
-
-                        // If new bill, finalize previous and start new one
-                        if (billNumber != lastBillNumber) {
-                            if (currentBuilder != null) {
-                                bills.add(currentBuilder.build());
-                            }
-
-                            currentBuilder = new Bill.Builder()
-                                    .withBillNumber(rs.getInt("bill_number"))
-                                    .withDate(rs.getTimestamp("bill_date").toLocalDateTime())
-                                    .withDiscount(rs.getBigDecimal("discount"))
-                                    .withCashTendered(rs.getBigDecimal("cash_tendered"))
-                                    .withTransactionType(TransactionType.valueOf(rs.getString("transaction_type")));
-                            lastBillNumber = billNumber;
-                        }
-
-                        // Add bill item if exists
-                        if (rs.getString("item_code") != null) {
-                            BillItem billItem = mapper.mapBillItem(rs);
-                            currentBuilder.addBillItem(billItem);
-                        }
-                    }
-
-                    // Don't forget to add the last bill
-                    if (currentBuilder != null) {
-                        bills.add(currentBuilder.build());
-                    }
-                }
-            }
-            return bills;
-        });
+        return connectionManager.executeReadOnly(connection -> loadBills(connection,
+                "SELECT " + HEADER_COLUMNS + " FROM bills WHERE bill_date >= ? AND bill_date < ? ORDER BY bill_number",
+                stmt -> setDayRange(stmt, 1, date, date)));
     }
 
     /**
      * Find all bills
+     * Loads the whole history into memory; prefer findPage or streamAll for listings.
      * @return List of all bills
      */
     public List<Bill> findAll() {
-        return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT b.*, bi.*, i.* FROM bills b " +
-                    "LEFT JOIN bill_items bi ON b.bill_number = bi.bill_number " +
-                    "LEFT JOIN items i ON bi.item_code = i.code " +
-                    "ORDER BY b.bill_date DESC, b.bill_number, bi.id";
-
-            List<Bill> bills = new ArrayList<>();
-            Bill.Builder currentBuilder = null;
-            int lastBillNumber = -1;
-
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+        return connectionManager.executeReadOnly(connection -> loadBills(connection,
+                "SELECT " + HEADER_COLUMNS + " FROM bills ORDER BY bill_date DESC, bill_number",
+                stmt -> { }));
+    }
 
-                while (rs.next()) {
-                    int billNumber = rs.getInt("bill_number");
-
-                    // If new bill, finalize previous and start new one
-                    if (billNumber != lastBillNumber) {
-                        if (currentBuilder != null) {
-                            bills.add(currentBuilder.build());
-                        }
-
-                        currentBuilder = new Bill.Builder()
-                                .withBillNumber(rs.getInt("bill_number"))
-                                .withDate(rs.getTimestamp("bill_date").toLocalDateTime())
-                                .withDiscount(rs.getBigDecimal("discount"))
-                                .withCashTendered(rs.getBigDecimal("cash_tendered"))
-                                .withTransactionType(TransactionType.valueOf(rs.getString("transaction_type")));
-                        lastBillNumber = billNumber;
-                    }
+    /**
+     * Find one page of bills, newest first.
+     * Pages are keyed by (bill_date, bill_number) rather than OFFSET, so each page
+     * costs the same however deep into the history it is.
+     * @param after Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of bills in the page
+     * @return The page and the cursor for the next one
+     */
+    public Page findPage(Cursor after, int pageSize) {
+        return connectionManager.executeReadOnly(connection -> {
+            List<Bill> bills = loadPage(connection, after, pageSize, new HashMap<>());
+            Cursor next = bills.size() == pageSize ? cursorAfter(bills) : null;
+            return new Page(bills, next);
+        });
+    }
 
-                    // Add bill item if exists
-                    if (rs.getString("item_code") != null) {
-                        BillItem billItem = mapper.mapBillItem(rs);
-                        currentBuilder.addBillItem(billItem);
-                    }
+    /**
+     * Pass every bill to the callback, newest first, one at a time.
+     * The history is walked in keyset pages of STREAM_PAGE_SIZE bills along
+     * idx_bill_date, so memory stays flat and nothing is sorted up front however
+     * long the history is. All pages are read from one snapshot on one connection,
+     * and each page is fully loaded before the callback sees its bills.
+     * @param callback Receives each bill in turn
+     */
+    public void streamAll(Consumer<Bill> callback) {
+        connectionManager.executeReadOnlySnapshot(connection -> {
+            // Items seen on earlier pages are not looked up again
+            Map<String, Item> items = new HashMap<>();
+            Cursor after = null;
+            List<Bill> bills;
+            do {
+                bills = loadPage(connection, after, STREAM_PAGE_SIZE, items);
+                for (Bill bill : bills) {
+                    callback.accept(bill);
                 }
-
-                // Don't forget to add the last bill
-                if (currentBuilder != null) {
-                    bills.add(currentBuilder.build());
+                if (!bills.isEmpty()) {
+                    after = cursorAfter(bills);
                 }
-            }
-            return bills;
+            } while (bills.size() == STREAM_PAGE_SIZE);
+            return null;
         });
     }
 
+    /**
+     * One page of bills, newest first, after the cursor (or from the newest bill when it is null)
+     */
+    private List<Bill> loadPage(Connection connection, Cursor after, int pageSize, Map<String, Item> items)
+            throws SQLException {
+        if (after == null) {
+            return loadBills(connection,
+                    "SELECT " + HEADER_COLUMNS + " FROM bills " +
+                    "ORDER BY bill_date DESC, bill_number DESC LIMIT ?",
+                    stmt -> stmt.setInt(1, pageSize), items);
+        }
+        Timestamp billDate = Timestamp.valueOf(after.getBillDate());
+        return loadBills(connection,
+                "SELECT " + HEADER_COLUMNS + " FROM bills " +
+                "WHERE bill_date < ? OR (bill_date = ? AND bill_number < ?) " +
+                "ORDER BY bill_date DESC, bill_number DESC LIMIT ?",
+                stmt -> {
+                    stmt.setTimestamp(1, billDate);
+                    stmt.setTimestamp(2, billDate);
+                    stmt.setInt(3, after.getBillNumber());
+                    stmt.setInt(4, pageSize);
+                }, items);
+    }
+
+    private static Cursor cursorAfter(List<Bill> bills) {
+        Bill last = bills.get(bills.size() - 1);
+        return new Cursor(last.getBillDate(), last.getBillNumber().getValue());
+    }
+
     /**
      * Find a bill by its number
      * @param billNumber The bill number to search for
@@ -246,36 +260,10 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
      */
     public Bill findByBillNumber(int billNumber) {
         return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT b.*, bi.*, i.* FROM bills b " +
-                    "LEFT JOIN bill_items bi ON b.bill_number = bi.bill_number " +
-                    "LEFT JOIN items i ON bi.item_code = i.code " +
-                    "WHERE b.bill_number = ?";
-
-            Bill.Builder builder = null;
-
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setInt(1, billNumber);
-
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        if (builder == null) {
-                            builder = new Bill.Builder()
-                                    .withBillNumber(rs.getInt("bill_number"))
-                                    .withDate(rs.getTimestamp("bill_date").toLocalDateTime())
-                                    .withDiscount(rs.getBigDecimal("discount"))
-                                    .withCashTendered(rs.getBigDecimal("cash_tendered"))
-                                    .withTransactionType(TransactionType.valueOf(rs.getString("transaction_type")));
-                        }
-
-                        // Add bill item if exists
-                        if (rs.getString("item_code") != null) {
-                            BillItem billItem = mapper.mapBillItem(rs);
-                            builder.addBillItem(billItem);
-                        }
-                    }
-                }
-            }
-            return builder != null ? builder.build() : null;
+            List<Bill> bills = loadBills(connection,
+                    "SELECT " + HEADER_COLUMNS + " FROM bills WHERE bill_number = ?",
+                    stmt -> stmt.setInt(1, billNumber));
+            return bills.isEmpty() ? null : bills.get(0);
         });
     }
 
@@ -285,11 +273,11 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
      * @return Total sales amount
      */
     public Money getTotalSalesForDate(LocalDate date) {
-        return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT SUM(total_amount) as total FROM bills WHERE DATE(bill_date) = ?";
+        return connectionManager.executeReadOnly(connection -> {
+            String sql = "SELECT SUM(total_amount) as total FROM bills WHERE bill_date >= ? AND bill_date < ?";
 
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setDate(1, Date.valueOf(date));
+                setDayRange(stmt, 1, date, date);
 
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
@@ -308,11 +296,11 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
      * @return Number of bills
      */
     public int countBillsForDate(LocalDate date) {
-        return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT COUNT(*) as count FROM bills WHERE DATE(bill_date) = ?";
+        return connectionManager.executeReadOnly(connection -> {
+            String sql = "SELECT COUNT(*) as count FROM bills WHERE bill_date >= ? AND bill_date < ?";
 
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setDate(1, Date.valueOf(date));
+                setDayRange(stmt, 1, date, date);
 
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
@@ -324,6 +312,58 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
         });
     }
 
+    /**
+     * Sales per item over a date range, aggregated by MySQL.
+     * Returns one row per item sold rather than one per bill line, in the order
+     * each item was first sold (bill number, then line). The bill count and the
+     * per-item rows are read from one snapshot, so a sale committing in between
+     * cannot make them disagree.
+     * @param firstDay First day (inclusive)
+     * @param lastDay Last day (inclusive)
+     */
+    public SalesSummary findItemSales(LocalDate firstDay, LocalDate lastDay) {
+        return connectionManager.executeReadOnlySnapshot(connection -> loadItemSales(connection, firstDay, lastDay));
+    }
+
+    private static SalesSummary loadItemSales(Connection connection, LocalDate firstDay, LocalDate lastDay)
+            throws SQLException {
+        int transactions;
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT COUNT(*) as count FROM bills WHERE bill_date >= ? AND bill_date < ?")) {
+            setDayRange(stmt, 1, firstDay, lastDay);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                transactions = rs.getInt("count");
+            }
+        }
+
+        // LEFT JOIN so a line whose item row is gone fails loudly, as loadBills does
+        String sql = "SELECT bi.item_code, i.name, SUM(bi.quantity) as quantity, " +
+                "SUM(bi.quantity * bi.unit_price) as revenue " +
+                "FROM bills b " +
+                "JOIN bill_items bi ON bi.bill_number = b.bill_number " +
+                "LEFT JOIN items i ON i.code = bi.item_code " +
+                "WHERE b.bill_date >= ? AND b.bill_date < ? " +
+                "GROUP BY bi.item_code, i.name " +
+                "ORDER BY MIN(bi.bill_number), MIN(bi.id)";
+        List<ItemSales> items = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            setDayRange(stmt, 1, firstDay, lastDay);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String itemCode = rs.getString("item_code");
+                    String name = rs.getString("name");
+                    if (name == null) {
+                        throw new SQLException("Item " + itemCode + " on a bill not found");
+                    }
+                    items.add(new ItemSales(itemCode, name, rs.getInt("quantity"),
+                            new Money(rs.getBigDecimal("revenue"))));
+                }
+            }
+        }
+        return new SalesSummary(transactions, items);
+    }
+
     /**
      * Find bills within a date range
      * @param startDate Start date (inclusive)
@@ -331,54 +371,223 @@ public class BillGateway extends OracleDatabaseGateway<Bill> {
      * @return List of bills in the date range
      */
     public List<Bill> findByDateRange(LocalDate startDate, LocalDate endDate) {
-        return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT b.*, bi.*, i.* FROM bills b " +
-                    "LEFT JOIN bill_items bi ON b.bill_number = bi.bill_number " +
-                    "LEFT JOIN items i ON bi.item_code = i.code " +
-                    "WHERE DATE(b.bill_date) BETWEEN ? AND ? " +
-                    "ORDER BY b.bill_date DESC, b.bill_number, bi.id";
+        return connectionManager.executeReadOnly(connection -> loadBills(connection,
+                "SELECT " + HEADER_COLUMNS + " FROM bills WHERE bill_date >= ? AND bill_date < ? " +
+                "ORDER BY bill_date DESC, bill_number",
+                stmt -> setDayRange(stmt, 1, startDate, endDate)));
+    }
 
-            List<Bill> bills = new ArrayList<>();
-            Bill.Builder currentBuilder = null;
-            int lastBillNumber = -1;
+    /**
+     * Bind [start of firstDay, start of the day after lastDay) to two parameters.
+     * Comparing the bare column against a half-open range lets MySQL use
+     * idx_bill_date, where wrapping it in DATE() forces a full scan.
+     */
+    static void setDayRange(PreparedStatement stmt, int index, LocalDate firstDay, LocalDate lastDay)
+            throws SQLException {
+        stmt.setTimestamp(index, Timestamp.valueOf(firstDay.atStartOfDay()));
+        stmt.setTimestamp(index + 1, Timestamp.valueOf(lastDay.plusDays(1).atStartOfDay()));
+    }
 
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setDate(1, Date.valueOf(startDate));
-                stmt.setDate(2, Date.valueOf(endDate));
+    /**
+     * Load bills in two phases instead of one bills x bill_items x items join.
+     * The header query picks the bills and their order; their lines are then read
+     * with bill_number IN (...) batches, priced at the stored unit_price, and each
+     * distinct item is loaded once for the whole call.
+     */
+    private List<Bill> loadBills(Connection connection, String headerSql, ParameterBinder binder) throws SQLException {
+        return loadBills(connection, headerSql, binder, new HashMap<>());
+    }
 
+    /**
+     * loadBills that resolves lines against, and adds to, items already loaded by the caller
+     */
+    private List<Bill> loadBills(Connection connection, String headerSql, ParameterBinder binder,
+                                 Map<String, Item> items) throws SQLException {
+        Map<Integer, Bill.Builder> builders = new LinkedHashMap<>();
+        try (PreparedStatement stmt = connection.prepareStatement(headerSql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    builders.put(rs.getInt("bill_number"), mapper.mapHeader(rs));
+                }
+            }
+        }
+        if (builders.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> billNumbers = new ArrayList<>(builders.keySet());
+        for (int start = 0; start < billNumbers.size(); start += IN_BATCH_SIZE) {
+            List<Integer> batch = billNumbers.subList(start, Math.min(start + IN_BATCH_SIZE, billNumbers.size()));
+            String sql = "SELECT bill_number, item_code, quantity, unit_price FROM bill_items " +
+                    "WHERE bill_number IN (" + placeholders(batch.size()) + ") ORDER BY bill_number, id";
+
+            List<BillLine> lines = new ArrayList<>();
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setInt(i + 1, batch.get(i));
+                }
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
-                        int billNumber = rs.getInt("bill_number");
-
-                        // If new bill, finalize previous and start new one
-                        if (billNumber != lastBillNumber) {
-                            if (currentBuilder != null) {
-                                bills.add(currentBuilder.build());
-                            }
-
-                            currentBuilder = new Bill.Builder()
-                                    .withBillNumber(rs.getInt("bill_number"))
-                                    .withDate(rs.getTimestamp("bill_date").toLocalDateTime())
-                                    .withDiscount(rs.getBigDecimal("discount"))
-                                    .withCashTendered(rs.getBigDecimal("cash_tendered"))
-                                    .withTransactionType(TransactionType.valueOf(rs.getString("transaction_type")));
-                            lastBillNumber = billNumber;
-                        }
-
-                        // Add bill item if exists
-                        if (rs.getString("item_code") != null) {
-                            BillItem billItem = mapper.mapBillItem(rs);
-                            currentBuilder.addBillItem(billItem);
-                        }
+                        lines.add(new BillLine(rs.getInt("bill_number"), rs.getString("item_code"),
+                                rs.getInt("quantity"), rs.getBigDecimal("unit_price")));
                     }
+                }
+            }
+
+            // Only items not already seen earlier in this call are fetched
+            Set<String> missing = new LinkedHashSet<>();
+            for (BillLine line : lines) {
+                if (!items.containsKey(line.itemCode)) {
+                    missing.add(line.itemCode);
+                }
+            }
+            if (!missing.isEmpty()) {
+                items.putAll(loadItems(connection, missing));
+            }
+
+            for (BillLine line : lines) {
+                Item item = items.get(line.itemCode);
+                if (item == null) {
+                    throw new SQLException("Item " + line.itemCode + " on bill " + line.billNumber + " not found");
+                }
+                builders.get(line.billNumber).addBillItem(
+                        new BillItem(item, line.quantity, new Money(line.unitPrice)));
+            }
+        }
+
+        List<Bill> bills = new ArrayList<>(builders.size());
+        for (Bill.Builder builder : builders.values()) {
+            bills.add(builder.build());
+        }
+        return bills;
+    }
 
-                    // Don't forget to add the last bill
-                    if (currentBuilder != null) {
-                        bills.add(currentBuilder.build());
+    private Map<String, Item> loadItems(Connection connection, Collection<String> codes) throws SQLException {
+        Map<String, Item> items = new HashMap<>();
+        List<String> codeList = new ArrayList<>();
+        ItemCache cache = ItemCache.getInstance();
+        boolean useCache = cache.isEnabled() && !ConnectionManager.isTransactionActive();
+        for (String code : codes) {
+            Item cached = useCache ? cache.get(code) : null;
+            if (cached != null) {
+                items.put(code, cached);
+            } else {
+                codeList.add(code);
+            }
+        }
+        for (int start = 0; start < codeList.size(); start += IN_BATCH_SIZE) {
+            List<String> batch = codeList.subList(start, Math.min(start + IN_BATCH_SIZE, codeList.size()));
+            String sql = "SELECT * FROM items WHERE code IN (" + placeholders(batch.size()) + ")";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setString(i + 1, batch.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Item item = itemMapper.mapRow(rs);
+                        items.put(item.getCode().getValue(), item);
                     }
                 }
             }
-            return bills;
-        });
+        }
+        return items;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    @FunctionalInterface
+    private interface ParameterBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * One bill_items row, held until its item has been resolved
+     */
+    private static final class BillLine {
+        private final int billNumber;
+        private final String itemCode;
+        private final int quantity;
+        private final BigDecimal unitPrice;
+
+        private BillLine(int billNumber, String itemCode, int quantity, BigDecimal unitPrice) {
+            this.billNumber = billNumber;
+            this.itemCode = itemCode;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+        }
+    }
+
+    /**
+     * Position after the last bill of a page
+     */
+    public static final class Cursor {
+        private final LocalDateTime billDate;
+        private final int billNumber;
+
+        public Cursor(LocalDateTime billDate, int billNumber) {
+            this.billDate = billDate;
+            this.billNumber = billNumber;
+        }
+
+        public LocalDateTime getBillDate() { return billDate; }
+        public int getBillNumber() { return billNumber; }
+    }
+
+    /**
+     * One page of bills and the cursor for the next page (null on the last page)
+     */
+    public static final class Page {
+        private final List<Bill> bills;
+        private final Cursor next;
+
+        public Page(List<Bill> bills, Cursor next) {
+            this.bills = bills;
+            this.next = next;
+        }
+
+        public List<Bill> getBills() { return bills; }
+        public Cursor getNext() { return next; }
+        public boolean hasNext() { return next != null; }
+    }
+
+    /**
+     * Quantity and revenue of one item over a period
+     */
+    public static final class ItemSales {
+        private final String itemCode;
+        private final String itemName;
+        private final int quantity;
+        private final Money revenue;
+
+        public ItemSales(String itemCode, String itemName, int quantity, Money revenue) {
+            this.itemCode = itemCode;
+            this.itemName = itemName;
+            this.quantity = quantity;
+            this.revenue = revenue;
+        }
+
+        public String getItemCode() { return itemCode; }
+        public String getItemName() { return itemName; }
+        public int getQuantity() { return quantity; }
+        public Money getRevenue() { return revenue; }
+    }
+
+    /**
+     * Bill count and per-item sales over a period
+     */
+    public static final class SalesSummary {
+        private final int transactionCount;
+        private final List<ItemSales> items;
+
+        public SalesSummary(int transactionCount, List<ItemSales> items) {
+            this.transactionCount = transactionCount;
+            this.items = items;
+        }
+
+        public int getTransactionCount() { return transactionCount; }
+        public List<ItemSales> getItems() { return items; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package com.syos.infrastructure.persistence.gateways;
+
+import com.syos.domain.valueobjects.BillNumber;
+import com.syos.infrastructure.config.DatabaseConfig;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import java.sql.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out bill numbers before bills are saved (hi/lo allocation).
+ * Numbers are reserved from the bill_sequence table a block at a time with one
+ * atomic UPDATE, then given out from memory without locking. Every JVM reserves
+ * its own blocks, so numbers never collide across the CLI and web applications.
+ * Numbers are unique and increasing per JVM but not gap-free: unused numbers in a
+ * block are lost when the application stops.
+ *
+ * Blocks are reserved on a connection of the allocator's own, outside the pool, so
+ * a caller that already holds a pooled connection (or a whole transaction) never
+ * waits for a second one, and the sequence row is never locked by a sale.
+ */
+public class BillNumberAllocator {
+    private static final String SEQUENCE_NAME = "bills";
+
+    private static final int MISSING_TABLE_ERROR = 1146; // ER_NO_SUCH_TABLE
+
+    private final DatabaseConnectionPool pool;
+    private final int validationTimeoutSeconds;
+    private final int blockSize;
+    private final Object refillLock = new Object();
+    private volatile Block current = new Block(0, 0);
+    private Connection sequenceConnection; // Opened on first refill; guarded by refillLock
+
+    public BillNumberAllocator() {
+        this(DatabaseConfig.getInstance().getBillNumberBlockSize());
+    }
+
+    public BillNumberAllocator(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.pool = DatabaseConnectionPool.getInstance();
+        this.validationTimeoutSeconds = DatabaseConfig.getInstance().getValidationTimeoutSeconds();
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return The next unused bill number
+     */
+    public BillNumber next() {
+        while (true) {
+            Block block = current;
+            long number = block.next.getAndIncrement();
+            if (number < block.limit) {
+                return new BillNumber(Math.toIntExact(number));
+            }
+
+            synchronized (refillLock) {
+                // Another thread may have refilled while we waited
+                if (current == block) {
+                    current = reserveBlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Close the sequence connection; a later refill opens a new one
+     */
+    public void close() {
+        synchronized (refillLock) {
+            closeSequenceConnection();
+        }
+    }
+
+    /**
+     * Reserve the next block with one auto-committed UPDATE on the sequence connection.
+     * Called with refillLock held.
+     */
+    private Block reserveBlock() {
+        try {
+            Connection connection = sequenceConnection();
+            long end = advanceSequence(connection);
+            if (end < 0) {
+                initialiseSequence(connection);
+                end = advanceSequence(connection);
+            }
+            if (end < 0) {
+                throw new SQLException("Bill sequence '" + SEQUENCE_NAME + "' is missing");
+            }
+            return new Block(end - blockSize, end);
+        } catch (SQLException e) {
+            closeSequenceConnection();
+            if (e.getErrorCode() == MISSING_TABLE_ERROR) {
+                throw new RuntimeException("Table bill_sequence does not exist; " +
+                        "run sql/migrations/001_add_bill_sequence.sql", e);
+            }
+            throw new RuntimeException("Failed to reserve bill numbers", e);
+        }
+    }
+
+    /**
+     * @return The open sequence connection, reconnecting if the server dropped it
+     */
+    private Connection sequenceConnection() throws SQLException {
+        if (sequenceConnection != null && !sequenceConnection.isValid(validationTimeoutSeconds)) {
+            closeSequenceConnection();
+        }
+        if (sequenceConnection == null) {
+            sequenceConnection = pool.openDedicatedConnection();
+        }
+        return sequenceConnection;
+    }
+
+    private void closeSequenceConnection() {
+        if (sequenceConnection != null) {
+            try {
+                sequenceConnection.close();
+            } catch (SQLException e) {
+                // Already broken; a new one is opened on the next refill
+            }
+            sequenceConnection = null;
+        }
+    }
+
+    /**
+     * @return The new next_value (end of the reserved block), or -1 if the row is missing
+     */
+    private long advanceSequence(Connection connection) throws SQLException {
+        // LAST_INSERT_ID(expr) makes the new value readable on this connection without a second lock
+        String sql = "UPDATE bill_sequence SET next_value = LAST_INSERT_ID(next_value + ?) WHERE name = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, blockSize);
+            stmt.setString(2, SEQUENCE_NAME);
+            if (stmt.executeUpdate() == 0) {
+                return -1;
+            }
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Create the sequence row if it is missing (the migration normally seeds it),
+     * starting after the highest bill number already used
+     */
+    private void initialiseSequence(Connection connection) throws SQLException {
+        String sql = "INSERT IGNORE INTO bill_sequence (name, next_value) " +
+                "SELECT ?, COALESCE(MAX(bill_number), 0) + 1 FROM bills";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, SEQUENCE_NAME);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Numbers [next, limit) reserved for this JVM
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long limit;
+
+        private Block(long start, long limit) {
+            this.next = new AtomicLong(start);
+            this.limit = limit;
+        }
+    }
+}
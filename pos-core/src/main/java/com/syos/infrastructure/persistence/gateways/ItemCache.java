@@ -0,0 +1,236 @@
+package com.syos.infrastructure.persistence.gateways;
+
+import com.syos.domain.entities.Item;
+import com.syos.infrastructure.config.DatabaseConfig;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-process cache of Item snapshots keyed by item code, shared by every ItemGateway
+ * in the JVM. Entries are dropped when the gateways write the item and again once the
+ * writing transaction ends; the TTL is only a safety net for writes made elsewhere
+ * (the other application, or SQL run by hand).
+ *
+ * Every write bumps a generation counter. A value read from the database is only
+ * stored if no write happened since the read started, so a slow reader can never
+ * put back a row that a concurrent sale has already changed.
+ *
+ * Write listeners hear about every invalidation, so other in-memory copies of the
+ * catalogue can re-read just the rows that changed.
+ *
+ * Callers always get their own copy of an item, so changing its state or quantity
+ * never alters what the cache holds.
+ */
+public class ItemCache {
+    private static ItemCache instance;
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries;
+    private List<Item> allItems; // snapshot for findAll, null when not loaded
+    private long allItemsLoadedAt;
+    private final AtomicLong generation = new AtomicLong();
+    private final List<Consumer<String>> writeListeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private ItemCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        // Access order makes iteration order least recently used first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static synchronized ItemCache getInstance() {
+        if (instance == null) {
+            DatabaseConfig config = DatabaseConfig.getInstance();
+            instance = new ItemCache(config.getItemCacheMaxSize(), config.getItemCacheTtlMillis());
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Stamp to take before reading from the database; pass it to put
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @return A copy of the cached item, or null if it is not cached or has expired
+     */
+    public synchronized Item get(String code) {
+        Entry entry = entries.get(code);
+        if (entry != null && isExpired(entry.loadedAt)) {
+            entries.remove(code);
+            evictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.item.copy();
+    }
+
+    /**
+     * Cache an item read from the primary database, unless a write happened since the read began
+     * @param readGeneration currentGeneration() taken before the read
+     */
+    public synchronized void put(Item item, long readGeneration) {
+        if (!isEnabled() || generation.get() != readGeneration) {
+            return;
+        }
+        entries.put(item.getCode().getValue(), new Entry(item.copy(), System.nanoTime()));
+        evictOverflow();
+    }
+
+    /**
+     * @return Copies of all items as last loaded by findAll, or null if not cached or expired
+     */
+    public synchronized List<Item> getAll() {
+        if (allItems == null || isExpired(allItemsLoadedAt)) {
+            if (allItems != null) {
+                evictions.increment();
+                allItems = null;
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copies(allItems);
+    }
+
+    /**
+     * Cache the full item list, and each item by code, unless a write happened since the read began
+     * @param readGeneration currentGeneration() taken before the read
+     */
+    public synchronized void putAll(List<Item> items, long readGeneration) {
+        if (!isEnabled() || generation.get() != readGeneration) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (items.size() <= maxSize) {
+            // A catalogue bigger than the cache is not kept as a list either
+            allItems = copies(items);
+            allItemsLoadedAt = now;
+        }
+        for (Item item : items) {
+            entries.put(item.getCode().getValue(), new Entry(item.copy(), now));
+        }
+        evictOverflow();
+    }
+
+    /**
+     * Drop an item after it was written
+     */
+    public void invalidate(String code) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            entries.remove(code);
+            allItems = null;
+            invalidations.increment();
+        }
+        notifyWriteListeners(code);
+    }
+
+    /**
+     * Drop everything, for writes whose item codes are not known
+     */
+    public void invalidateAll() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            entries.clear();
+            allItems = null;
+            invalidations.increment();
+        }
+        notifyWriteListeners(null);
+    }
+
+    /**
+     * Call listener with the code of every item invalidated from now on, or with null
+     * when every item is. Listeners run on the writing thread, so they must be quick.
+     */
+    public void addWriteListener(Consumer<String> listener) {
+        writeListeners.add(listener);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void notifyWriteListeners(String code) {
+        for (Consumer<String> listener : writeListeners) {
+            listener.accept(code);
+        }
+    }
+
+    private boolean isExpired(long loadedAt) {
+        return System.nanoTime() - loadedAt > ttlNanos;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static List<Item> copies(List<Item> items) {
+        List<Item> result = new ArrayList<>(items.size());
+        for (Item item : items) {
+            result.add(item.copy());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ItemCache[size=%d/%d, hits=%d, misses=%d, evictions=%d, invalidations=%d]",
+                size(), maxSize, getHitCount(), getMissCount(), getEvictionCount(), getInvalidationCount());
+    }
+
+    private static final class Entry {
+        private final Item item;
+        private final long loadedAt;
+
+        private Entry(Item item, long loadedAt) {
+            this.item = item;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.syos.infrastructure.persistence.gateways;
+
+import com.syos.domain.entities.Item;
+import com.syos.infrastructure.config.DatabaseConfig;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.mappers.ItemMapper;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the item catalogue, kept current by polling items.updated_at.
+ * A background thread loads the whole table once and after that fetches only the
+ * rows changed since the last poll, so catalogue listings are served from memory
+ * and changes made on other nodes show up within about one poll interval. Reads
+ * never touch the database themselves, except while the first load is running.
+ *
+ * Writes made through ItemGateway in this JVM are reported by the ItemCache, and
+ * the background thread re-reads just those rows straight away, so a node sees its
+ * own sales within milliseconds rather than a poll interval. Changed rows are
+ * patched into the sorted snapshot in place of a full rebuild.
+ *
+ * Deleted rows leave no updated_at trace, and neither do rows whose transaction
+ * committed long after their timestamp was taken; a periodic full reload
+ * catches both.
+ *
+ * Reads inside a transaction go to the database so they see the transaction's
+ * own writes.
+ */
+public class ItemCatalogReplica {
+    private static final long OVERLAP_SECONDS = 5; // Re-read window for commits that landed after their timestamp
+    private static final int REFRESH_BATCH = 500; // Codes per IN list when re-reading written rows
+    private static final Comparator<Item> BY_NAME = Comparator
+            .comparing((Item item) -> item.getName(), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(item -> item.getCode().getValue());
+
+    private static ItemCatalogReplica instance;
+
+    private final ItemGateway itemGateway;
+    private final ItemCache itemCache;
+    private final ConnectionManager connectionManager;
+    private final ItemMapper mapper = new ItemMapper();
+    private final boolean enabled;
+    private final long pollMillis;
+    private final long fullSyncNanos;
+
+    // Guarded by this; only the poller thread syncs
+    private final Map<String, Item> byCode = new HashMap<>();
+    private LocalDateTime watermark;
+    private long lastFullSync;
+
+    // Codes written in this JVM and not yet re-read; reloadAll when the codes are unknown
+    private final Set<String> writtenCodes = ConcurrentHashMap.newKeySet();
+    private volatile boolean reloadAll;
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    private final Object pollerLock = new Object();
+    private volatile ScheduledExecutorService poller; // Written under pollerLock
+
+    // Written under this, read without locking
+    private volatile Snapshot snapshot; // Patched after every change
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong fullSyncs = new AtomicLong();
+    private final AtomicLong rowsApplied = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile String lastFailure;
+
+    private ItemCatalogReplica(ItemGateway itemGateway, boolean enabled, long pollMillis, long fullSyncMillis) {
+        this.itemGateway = itemGateway;
+        this.itemCache = ItemCache.getInstance();
+        this.connectionManager = new ConnectionManager();
+        this.enabled = enabled;
+        this.pollMillis = Math.max(1, pollMillis);
+        this.fullSyncNanos = TimeUnit.MILLISECONDS.toNanos(fullSyncMillis);
+    }
+
+    public static synchronized ItemCatalogReplica getInstance() {
+        if (instance == null) {
+            DatabaseConfig config = DatabaseConfig.getInstance();
+            instance = new ItemCatalogReplica(new ItemGateway(DatabaseConnectionPool.getInstance()),
+                    config.isCatalogReplicaEnabled(), config.getCatalogPollMillis(),
+                    config.getCatalogFullSyncMillis());
+            if (instance.enabled) {
+                instance.itemCache.addWriteListener(instance::itemWritten);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return Copies of all items, ordered by name
+     */
+    public List<Item> getAll() {
+        Snapshot current = current();
+        if (current == null) {
+            return itemGateway.findAll();
+        }
+        return copies(current.all);
+    }
+
+    /**
+     * @return Copies of the items in the given state (for example ON_SHELF), ordered by name
+     */
+    public List<Item> getByState(String stateName) {
+        Snapshot current = current();
+        if (current == null) {
+            List<Item> items = new ArrayList<>();
+            for (Item item : itemGateway.findAll()) {
+                if (stateName.equals(item.getState().getStateName())) {
+                    items.add(item);
+                }
+            }
+            return items;
+        }
+        return copies(current.byState.getOrDefault(stateName, Collections.emptyList()));
+    }
+
+    /**
+     * Stop the background poller; the next read starts it again
+     */
+    public void shutdown() {
+        synchronized (pollerLock) {
+            if (poller != null) {
+                poller.shutdownNow();
+                poller = null;
+            }
+        }
+    }
+
+    public long getPollCount() {
+        return polls.get();
+    }
+
+    public long getFullSyncCount() {
+        return fullSyncs.get();
+    }
+
+    public long getRowsApplied() {
+        return rowsApplied.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return The snapshot to answer from, or null if reads must go to the database:
+     * inside a transaction, with the replica disabled, or before the first load
+     */
+    private Snapshot current() {
+        if (!enabled || ConnectionManager.isTransactionActive()) {
+            return null;
+        }
+        startPoller();
+        return snapshot;
+    }
+
+    /**
+     * ItemCache write listener: queue the code and wake the poller. Runs on the
+     * writing thread, once when the row is written and again when its transaction
+     * ends, so the committed row is always re-read.
+     */
+    private void itemWritten(String code) {
+        if (code == null) {
+            reloadAll = true;
+        } else {
+            writtenCodes.add(code);
+        }
+        if (refreshQueued.compareAndSet(false, true)) {
+            synchronized (pollerLock) {
+                if (poller == null) {
+                    refreshQueued.set(false); // Nothing to refresh yet; the first read loads everything
+                } else {
+                    poller.execute(() -> backgroundSync(false));
+                }
+            }
+        }
+    }
+
+    private void startPoller() {
+        if (poller != null) {
+            return;
+        }
+        synchronized (pollerLock) {
+            if (poller != null) {
+                return;
+            }
+            poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "item-catalog-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // The first run loads the whole catalogue
+            poller.scheduleWithFixedDelay(() -> backgroundSync(true), 0, pollMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @param scheduled true for the periodic poll, false when woken by a local write
+     */
+    private void backgroundSync(boolean scheduled) {
+        refreshQueued.set(false);
+        try {
+            synchronized (this) {
+                boolean fullSyncDue = scheduled && System.nanoTime() - lastFullSync > fullSyncNanos;
+                if (snapshot == null || reloadAll || fullSyncDue) {
+                    // Cleared before reading, so a write made during the load is queued again
+                    reloadAll = false;
+                    writtenCodes.clear();
+                    fullSync();
+                    return;
+                }
+                Map<String, Item> changes = new HashMap<>();
+                refreshWritten(changes);
+                if (scheduled) {
+                    pollChanges(changes);
+                }
+                apply(changes);
+            }
+        } catch (RuntimeException e) {
+            // Keep serving the last snapshot; the next poll retries
+            failures.incrementAndGet();
+            lastFailure = e.getMessage();
+        }
+    }
+
+    private void fullSync() {
+        Map<String, Item> loaded = new HashMap<>();
+        LocalDateTime[] newest = new LocalDateTime[1];
+        connectionManager.executeWithConnection(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement("SELECT * FROM items");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Item item = mapper.mapRow(rs);
+                    loaded.put(item.getCode().getValue(), item);
+                    newest[0] = later(newest[0], rs.getTimestamp("updated_at"));
+                }
+            }
+            return null;
+        });
+
+        byCode.clear();
+        byCode.putAll(loaded);
+        watermark = newest[0];
+        lastFullSync = System.nanoTime();
+        fullSyncs.incrementAndGet();
+        rowsApplied.addAndGet(loaded.size());
+        snapshot = new Snapshot(byCode.values());
+    }
+
+    /**
+     * Re-read the rows written in this JVM since the last refresh. A code whose
+     * row is gone maps to null.
+     */
+    private void refreshWritten(Map<String, Item> changes) {
+        List<String> codes = new ArrayList<>();
+        for (Iterator<String> it = writtenCodes.iterator(); it.hasNext(); ) {
+            codes.add(it.next());
+            it.remove();
+        }
+        for (int from = 0; from < codes.size(); from += REFRESH_BATCH) {
+            List<String> batch = codes.subList(from, Math.min(codes.size(), from + REFRESH_BATCH));
+            for (String code : batch) {
+                changes.put(code, null);
+            }
+            connectionManager.executeWithConnection(connection -> {
+                String sql = "SELECT * FROM items WHERE code IN ("
+                        + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        stmt.setString(i + 1, batch.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Item item = mapper.mapRow(rs);
+                            changes.put(item.getCode().getValue(), item);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Fetch the rows whose updated_at moved past the watermark, written here or on other nodes
+     */
+    private void pollChanges(Map<String, Item> changes) {
+        LocalDateTime[] newest = {watermark};
+        connectionManager.executeWithConnection(connection -> {
+            String sql = watermark == null
+                    ? "SELECT * FROM items"
+                    : "SELECT * FROM items WHERE updated_at >= ?";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                if (watermark != null) {
+                    stmt.setTimestamp(1, Timestamp.valueOf(watermark.minusSeconds(OVERLAP_SECONDS)));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Item item = mapper.mapRow(rs);
+                        changes.put(item.getCode().getValue(), item);
+                        newest[0] = later(newest[0], rs.getTimestamp("updated_at"));
+                    }
+                }
+            }
+            return null;
+        });
+
+        polls.incrementAndGet();
+        watermark = newest[0];
+    }
+
+    /**
+     * Patch the changed rows into byCode and the snapshot. The overlap window and
+     * repeated write notifications return unchanged rows again; those are skipped.
+     */
+    private void apply(Map<String, Item> changes) {
+        List<Item> removed = new ArrayList<>();
+        List<Item> added = new ArrayList<>();
+        for (Map.Entry<String, Item> change : changes.entrySet()) {
+            Item item = change.getValue();
+            Item previous = item == null ? byCode.remove(change.getKey()) : byCode.put(change.getKey(), item);
+            if (previous != null && item != null && sameContent(previous, item)) {
+                continue;
+            }
+            if (previous != null) {
+                removed.add(previous);
+            }
+            if (item != null) {
+                added.add(item);
+            }
+            if (previous != null || item != null) {
+                rowsApplied.incrementAndGet();
+            }
+        }
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        // Patching costs a list copy per change batch; past a few percent of the catalogue a re-sort is cheaper
+        snapshot = added.size() + removed.size() > byCode.size() / 32 + 16
+                ? new Snapshot(byCode.values())
+                : snapshot.patch(removed, added);
+    }
+
+    private static LocalDateTime later(LocalDateTime current, Timestamp candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        LocalDateTime value = candidate.toLocalDateTime();
+        return current == null || value.isAfter(current) ? value : current;
+    }
+
+    private static boolean sameContent(Item a, Item b) {
+        return a.getName().equals(b.getName())
+                && a.getPrice().equals(b.getPrice())
+                && a.getQuantity().equals(b.getQuantity())
+                && a.getState().getStateName().equals(b.getState().getStateName())
+                && Objects.equals(a.getExpiryDate(), b.getExpiryDate())
+                && Objects.equals(a.getPurchaseDate(), b.getPurchaseDate());
+    }
+
+    private static List<Item> copies(List<Item> items) {
+        List<Item> result = new ArrayList<>(items.size());
+        for (Item item : items) {
+            result.add(item.copy());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        Snapshot current = snapshot;
+        return String.format("ItemCatalogReplica[items=%d, polls=%d, fullSyncs=%d, rowsApplied=%d, failures=%d%s]",
+                current == null ? 0 : current.all.size(), getPollCount(), getFullSyncCount(),
+                getRowsApplied(), getFailureCount(),
+                lastFailure == null ? "" : ", lastFailure=" + lastFailure);
+    }
+
+    /**
+     * Immutable view of the catalogue, indexed by state. Every list is sorted by BY_NAME.
+     */
+    private static final class Snapshot {
+        private final List<Item> all;
+        private final Map<String, List<Item>> byState;
+
+        private Snapshot(Collection<Item> items) {
+            List<Item> sorted = new ArrayList<>(items);
+            sorted.sort(BY_NAME);
+            Map<String, List<Item>> states = new HashMap<>();
+            for (Item item : sorted) {
+                states.computeIfAbsent(item.getState().getStateName(), state -> new ArrayList<>()).add(item);
+            }
+            this.all = Collections.unmodifiableList(sorted);
+            this.byState = states;
+        }
+
+        private Snapshot(List<Item> all, Map<String, List<Item>> byState) {
+            this.all = Collections.unmodifiableList(all);
+            this.byState = byState;
+        }
+
+        /**
+         * @return A copy with the removed items taken out and the added ones inserted in
+         * order; lists of states that did not change are shared
+         */
+        private Snapshot patch(List<Item> removed, List<Item> added) {
+            List<Item> patchedAll = new ArrayList<>(all);
+            Map<String, List<Item>> patchedStates = new HashMap<>(byState);
+            Set<String> copied = new HashSet<>();
+            for (Item item : removed) {
+                remove(patchedAll, item);
+                remove(stateList(patchedStates, copied, item), item);
+            }
+            for (Item item : added) {
+                insert(patchedAll, item);
+                insert(stateList(patchedStates, copied, item), item);
+            }
+            patchedStates.values().removeIf(List::isEmpty);
+            return new Snapshot(patchedAll, patchedStates);
+        }
+
+        /**
+         * The item's state list in states, copied the first time it is touched
+         */
+        private static List<Item> stateList(Map<String, List<Item>> states, Set<String> copied, Item item) {
+            String state = item.getState().getStateName();
+            if (copied.add(state)) {
+                states.put(state, new ArrayList<>(states.getOrDefault(state, Collections.emptyList())));
+            }
+            return states.get(state);
+        }
+
+        private static void remove(List<Item> sorted, Item item) {
+            int index = Collections.binarySearch(sorted, item, BY_NAME);
+            if (index >= 0) {
+                sorted.remove(index);
+            }
+        }
+
+        private static void insert(List<Item> sorted, Item item) {
+            int index = Collections.binarySearch(sorted, item, BY_NAME);
+            if (index >= 0) {
+                sorted.set(index, item);
+            } else {
+                sorted.add(-index - 1, item);
+            }
+        }
+    }
+}
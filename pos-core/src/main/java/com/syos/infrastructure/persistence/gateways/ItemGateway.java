@@ -2,20 +2,28 @@ package com.syos.infrastructure.persistence.gateways;
 
 import com.syos.domain.entities.*;
 import com.syos.domain.valueobjects.*;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
 import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
 import com.syos.infrastructure.persistence.mappers.ItemMapper;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.math.BigDecimal;
 
 public class ItemGateway extends OracleDatabaseGateway<Item> {
+    // Items that can still expire (IN_STORE or ON_SHELF) whose expiry date has passed
+    private static final String OVERDUE_CONDITION = "expiry_date < ? AND state IN ('IN_STORE', 'ON_SHELF')";
+
     private final ItemMapper mapper;
+    private final ItemCache cache;
 
     public ItemGateway(DatabaseConnectionPool pool) {
         super();
         this.mapper = new ItemMapper();
+        this.cache = ItemCache.getInstance();
     }
 
     @Override
@@ -70,8 +78,52 @@ public class ItemGateway extends OracleDatabaseGateway<Item> {
         return entity;
     }
 
+    @Override
+    protected void afterWrite(Item item) {
+        invalidate(item.getCode().getValue());
+    }
+
+    @Override
+    protected void afterDelete(Long id) {
+        // Only the id is known here, not the code
+        cache.invalidateAll();
+        ConnectionManager.afterCompletion(cache::invalidateAll);
+    }
+
+    /**
+     * Drop the cached item now, so other threads stop being served the old row,
+     * and again when the writing transaction ends, so a copy read back from the
+     * database before the commit does not outlive it
+     */
+    private void invalidate(String code) {
+        cache.invalidate(code);
+        ConnectionManager.afterCompletion(() -> cache.invalidate(code));
+    }
+
     // Additional methods specific to ItemGateway
+
+    /**
+     * Served from the item cache outside transactions. Inside a transaction the row
+     * is always read, so the transaction sees its own uncommitted writes.
+     */
     public Item findByCode(String code) {
+        if (!cache.isEnabled() || ConnectionManager.isTransactionActive()) {
+            return loadByCode(code);
+        }
+
+        Item cached = cache.get(code);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.currentGeneration();
+        Item item = loadByCode(code);
+        if (item != null) {
+            cache.put(item, generation);
+        }
+        return item;
+    }
+
+    private Item loadByCode(String code) {
         return connectionManager.executeWithConnection(connection -> {
             String sql = "SELECT * FROM items WHERE code = ?";
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -86,22 +138,241 @@ public class ItemGateway extends OracleDatabaseGateway<Item> {
         });
     }
 
-    public List<Item> findAll() {
+    /**
+     * Take sold quantities off the shelf with conditional updates.
+     * A row is decremented only while it is ON_SHELF and still holds the full
+     * quantity, and moves to SOLD_OUT when it reaches zero, so stock can never go
+     * negative however many sales run at once. Rows are updated in code order so
+     * concurrent sales lock them in the same order.
+     * Run inside a transaction so a partial failure rolls back with the sale.
+     * @param quantitiesByCode quantity to sell per item code
+     * @return codes whose stock could not cover the quantity (empty on success)
+     */
+    public List<String> decrementStock(Map<String, Integer> quantitiesByCode) {
+        Map<String, Integer> ordered = new TreeMap<>(quantitiesByCode);
         return connectionManager.executeWithConnection(connection -> {
-            String sql = "SELECT * FROM items ORDER BY name";
-            List<Item> items = new ArrayList<>();
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
-                while (rs.next()) {
-                    items.add(mapper.mapRow(rs));
+            String sql = "UPDATE items " +
+                    "SET state = CASE WHEN quantity = ? THEN 'SOLD_OUT' ELSE state END, " +
+                    "quantity = quantity - ? " +
+                    "WHERE code = ? AND state = 'ON_SHELF' AND quantity >= ?";
+            List<String> codes = new ArrayList<>(ordered.keySet());
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (String code : codes) {
+                    int quantity = ordered.get(code);
+                    stmt.setInt(1, quantity);
+                    stmt.setInt(2, quantity);
+                    stmt.setString(3, code);
+                    stmt.setInt(4, quantity);
+                    stmt.addBatch();
                 }
+                int[] updateCounts = stmt.executeBatch();
+                codes.forEach(this::invalidate);
+
+                List<String> failed = new ArrayList<>();
+                for (int i = 0; i < updateCounts.length; i++) {
+                    if (updateCounts[i] == 0) {
+                        failed.add(codes.get(i));
+                    }
+                }
+                return failed;
             }
-            return items;
         });
     }
 
-    public List<Item> findLowStock(int threshold) {
+    /**
+     * Add stock to an item relative to whatever quantity it holds when the update runs,
+     * so a concurrent sale's decrement is never overwritten
+     * @return false if there is no item with this code
+     */
+    public boolean addQuantity(String code, int quantity) {
+        return updateRow(code, "UPDATE items SET quantity = quantity + ? WHERE code = ?", quantity);
+    }
+
+    /**
+     * Take stock out of the store for the shelf. Only succeeds while the item is
+     * IN_STORE and still holds the full quantity.
+     * @return false if the item is missing, not in store or short of stock
+     */
+    public boolean takeFromStore(String code, int quantity) {
+        String sql = "UPDATE items SET quantity = quantity - ? " +
+                "WHERE code = ? AND state = 'IN_STORE' AND quantity >= ?";
+        return updateRow(code, sql, quantity, quantity);
+    }
+
+    /**
+     * Put stock on an existing shelf item, bringing a SOLD_OUT shelf item back ON_SHELF.
+     * Expired shelf stock is left alone.
+     * @return false if the shelf item is missing or expired
+     */
+    public boolean addToShelf(String code, int quantity) {
+        String sql = "UPDATE items SET quantity = quantity + ?, state = 'ON_SHELF' " +
+                "WHERE code = ? AND state IN ('ON_SHELF', 'SOLD_OUT')";
+        return updateRow(code, sql, quantity);
+    }
+
+    /**
+     * Change only the price, leaving quantity and state as they are in the row
+     * @return false if there is no item with this code
+     */
+    public boolean updatePrice(String code, BigDecimal price) {
+        return connectionManager.executeWithConnection(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "UPDATE items SET price = ? WHERE code = ?")) {
+                stmt.setBigDecimal(1, price);
+                stmt.setString(2, code);
+                boolean updated = stmt.executeUpdate() > 0;
+                invalidate(code);
+                return updated;
+            }
+        });
+    }
+
+    /**
+     * Run a single-row quantity update whose parameters are the quantity, the code,
+     * then any guard values
+     */
+    private boolean updateRow(String code, String sql, int quantity, int... guards) {
+        return connectionManager.executeWithConnection(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, quantity);
+                stmt.setString(2, code);
+                for (int i = 0; i < guards.length; i++) {
+                    stmt.setInt(3 + i, guards[i]);
+                }
+                boolean updated = stmt.executeUpdate() > 0;
+                invalidate(code);
+                return updated;
+            }
+        });
+    }
+
+    /**
+     * Codes of items that are past their expiry date but not yet marked EXPIRED
+     * @param today Items whose expiry date is before this day are overdue
+     */
+    public List<String> findOverdueCodes(LocalDate today) {
         return connectionManager.executeWithConnection(connection -> {
+            String sql = "SELECT code FROM items WHERE " + OVERDUE_CONDITION;
+            List<String> codes = new ArrayList<>();
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setDate(1, Date.valueOf(today));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        codes.add(rs.getString("code"));
+                    }
+                }
+            }
+            return codes;
+        });
+    }
+
+    /**
+     * Move every overdue item to EXPIRED with set-based statements in one transaction:
+     * the rows are locked, an EXPIRE stock movement is written for each, and their
+     * state is changed with a single UPDATE.
+     * @param today Items whose expiry date is before this day are overdue
+     * @return Codes of the items that were expired
+     */
+    public List<String> expireOverdue(LocalDate today) {
+        List<String> expired = new ArrayList<>();
+        connectionManager.executeWithTransaction(connection -> {
+            Date cutoff = Date.valueOf(today);
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT code FROM items WHERE " + OVERDUE_CONDITION + " FOR UPDATE")) {
+                stmt.setDate(1, cutoff);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        expired.add(rs.getString("code"));
+                    }
+                }
+            }
+            if (expired.isEmpty()) {
+                return;
+            }
+
+            String movementSql = "INSERT INTO stock_movements " +
+                    "(item_code, movement_type, quantity, from_state, to_state, notes) " +
+                    "SELECT code, 'EXPIRE', quantity, state, 'EXPIRED', 'Expiry sweep' " +
+                    "FROM items WHERE " + OVERDUE_CONDITION;
+            try (PreparedStatement stmt = connection.prepareStatement(movementSql)) {
+                stmt.setDate(1, cutoff);
+                stmt.executeUpdate();
+            }
+
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "UPDATE items SET state = 'EXPIRED' WHERE " + OVERDUE_CONDITION)) {
+                stmt.setDate(1, cutoff);
+                stmt.executeUpdate();
+            }
+        });
+
+        expired.forEach(this::invalidate);
+        return expired;
+    }
+
+    /**
+     * Served from the item cache outside transactions. A cache miss reads the primary
+     * rather than the replica, so replication lag is never cached.
+     */
+    public List<Item> findAll() {
+        if (!cache.isEnabled() || ConnectionManager.isTransactionActive()) {
+            return connectionManager.executeReadOnly(this::loadAll);
+        }
+
+        List<Item> cached = cache.getAll();
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.currentGeneration();
+        List<Item> items = connectionManager.executeWithConnection(this::loadAll);
+        cache.putAll(items, generation);
+        return items;
+    }
+
+    private List<Item> loadAll(Connection connection) throws SQLException {
+        String sql = "SELECT * FROM items ORDER BY name";
+        List<Item> items = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                items.add(mapper.mapRow(rs));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Catalogue-wide figures in one aggregate query instead of loading every item
+     * @param lowStockThreshold Non-expired items below this quantity count as low stock
+     * @param expiringDays Items expiring between today and this many days ahead count as expiring
+     */
+    public StockTotals findStockTotals(int lowStockThreshold, int expiringDays) {
+        return connectionManager.executeReadOnly(connection -> {
+            // Same conditions as findLowStock and findExpiringSoon
+            String sql = "SELECT COUNT(*) as total_items, " +
+                    "COALESCE(SUM(quantity), 0) as total_quantity, " +
+                    "COALESCE(SUM(state = 'EXPIRED'), 0) as expired_count, " +
+                    "COALESCE(SUM(quantity < ? AND state != 'EXPIRED'), 0) as low_stock_count, " +
+                    "COALESCE(SUM(expiry_date BETWEEN CURDATE() AND DATE_ADD(CURDATE(), INTERVAL ? DAY)), 0) " +
+                    "as expiring_count, " +
+                    "SUM(CASE WHEN state != 'EXPIRED' THEN price * quantity END) as total_value " +
+                    "FROM items";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, lowStockThreshold);
+                stmt.setInt(2, expiringDays);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    BigDecimal totalValue = rs.getBigDecimal("total_value");
+                    return new StockTotals(rs.getInt("total_items"), rs.getInt("total_quantity"),
+                            rs.getInt("expired_count"), rs.getInt("low_stock_count"),
+                            rs.getInt("expiring_count"), totalValue != null ? totalValue : BigDecimal.ZERO);
+                }
+            }
+        });
+    }
+
+    public List<Item> findLowStock(int threshold) {
+        return connectionManager.executeReadOnly(connection -> {
             String sql = "SELECT * FROM items WHERE quantity < ? AND state != 'EXPIRED'";
             List<Item> items = new ArrayList<>();
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -117,7 +388,7 @@ public class ItemGateway extends OracleDatabaseGateway<Item> {
     }
 
     public List<Item> findExpiringSoon(int days) {
-        return connectionManager.executeWithConnection(connection -> {
+        return connectionManager.executeReadOnly(connection -> {
             String sql = "SELECT * FROM items WHERE expiry_date BETWEEN CURDATE() AND DATE_ADD(CURDATE(), INTERVAL ? DAY)";
             List<Item> items = new ArrayList<>();
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -131,4 +402,33 @@ public class ItemGateway extends OracleDatabaseGateway<Item> {
             return items;
         });
     }
+
+    /**
+     * Catalogue-wide counts and value, as computed by findStockTotals
+     */
+    public static final class StockTotals {
+        private final int totalItems;
+        private final int totalQuantity;
+        private final int expiredCount;
+        private final int lowStockCount;
+        private final int expiringCount;
+        private final BigDecimal totalValue;
+
+        public StockTotals(int totalItems, int totalQuantity, int expiredCount,
+                           int lowStockCount, int expiringCount, BigDecimal totalValue) {
+            this.totalItems = totalItems;
+            this.totalQuantity = totalQuantity;
+            this.expiredCount = expiredCount;
+            this.lowStockCount = lowStockCount;
+            this.expiringCount = expiringCount;
+            this.totalValue = totalValue;
+        }
+
+        public int getTotalItems() { return totalItems; }
+        public int getTotalQuantity() { return totalQuantity; }
+        public int getExpiredCount() { return expiredCount; }
+        public int getLowStockCount() { return lowStockCount; }
+        public int getExpiringCount() { return expiringCount; }
+        public BigDecimal getTotalValue() { return totalValue; }
+    }
 }
@@ -1,19 +1,23 @@
 package com.syos.infrastructure.persistence.gateways;
 
+import com.syos.infrastructure.config.DatabaseConfig;
 import com.syos.infrastructure.persistence.connection.ConnectionManager;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class OracleDatabaseGateway<T> {
     protected final ConnectionManager connectionManager;
+    private final int batchSize;
 
     protected OracleDatabaseGateway() {
         this.connectionManager = new ConnectionManager();
+        this.batchSize = Math.max(1, DatabaseConfig.getInstance().getBatchSize());
     }
 
     // Template Method Pattern
     public final T insert(T entity) {
-        return connectionManager.executeWithConnection(connection -> {
+        T inserted = connectionManager.executeWithConnection(connection -> {
             String sql = getInsertSQL();
             try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
                 setInsertParameters(stmt, entity);
@@ -27,6 +31,8 @@ public abstract class OracleDatabaseGateway<T> {
                 return entity;
             }
         });
+        afterWrite(entity);
+        return inserted;
     }
 
     public final void update(T entity) {
@@ -38,17 +44,108 @@ public abstract class OracleDatabaseGateway<T> {
                 return null;
             }
         });
+        afterWrite(entity);
     }
 
     public final void delete(Long id) {
-        connectionManager.executeWithConnection(connection -> {
+        connectionManager.executeWithTransaction(connection -> {
+            ConnectionManager.TransactionCallback afterRowsDeleted = beforeDelete(connection, List.of(id));
             String sql = getDeleteSQL();
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
                 stmt.setLong(1, id);
                 stmt.executeUpdate();
-                return null;
+            }
+            if (afterRowsDeleted != null) {
+                afterRowsDeleted.execute(connection);
+            }
+        });
+        afterDelete(id);
+    }
+
+    /**
+     * Insert all entities with batched statements in one transaction.
+     * Large inputs are sent in chunks of db.batch.size rows.
+     * @return The entities in input order, mapped with their generated keys where the table has them
+     */
+    public final List<T> insertAll(List<T> entities) {
+        List<T> inserted = new ArrayList<>(entities.size());
+        if (entities.isEmpty()) {
+            return inserted;
+        }
+
+        connectionManager.executeWithTransaction(connection -> {
+            String sql = getInsertSQL();
+            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (List<T> chunk : chunks(entities)) {
+                    for (T entity : chunk) {
+                        setInsertParameters(stmt, entity);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+
+                    // Keys come back in the order the rows were added
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (T entity : chunk) {
+                            inserted.add(generatedKeys.next()
+                                    ? mapResultWithId(entity, generatedKeys.getLong(1))
+                                    : entity);
+                        }
+                    }
+                }
+            }
+        });
+        entities.forEach(this::afterWrite);
+        return inserted;
+    }
+
+    /**
+     * Update all entities with batched statements in one transaction
+     */
+    public final void updateAll(List<T> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        connectionManager.executeWithTransaction(connection -> {
+            String sql = getUpdateSQL();
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (List<T> chunk : chunks(entities)) {
+                    for (T entity : chunk) {
+                        setUpdateParameters(stmt, entity);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
             }
         });
+        entities.forEach(this::afterWrite);
+    }
+
+    /**
+     * Delete all ids with batched statements in one transaction
+     */
+    public final void deleteAll(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        connectionManager.executeWithTransaction(connection -> {
+            ConnectionManager.TransactionCallback afterRowsDeleted = beforeDelete(connection, ids);
+            String sql = getDeleteSQL();
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (List<Long> chunk : chunks(ids)) {
+                    for (Long id : chunk) {
+                        stmt.setLong(1, id);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+            if (afterRowsDeleted != null) {
+                afterRowsDeleted.execute(connection);
+            }
+        });
+        ids.forEach(this::afterDelete);
     }
 
     public final T findById(Long id) {
@@ -66,6 +163,38 @@ public abstract class OracleDatabaseGateway<T> {
         });
     }
 
+    private <E> List<List<E>> chunks(List<E> rows) {
+        List<List<E>> chunks = new ArrayList<>();
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            chunks.add(rows.subList(start, Math.min(start + batchSize, rows.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Hook called after an entity is inserted or updated; the write may still be
+     * part of an open transaction. Gateways that cache rows drop them here.
+     */
+    protected void afterWrite(T entity) {
+    }
+
+    /**
+     * Hook called inside the delete's transaction, on its connection, while the rows
+     * still exist. Gateways that keep derived tables in step read what they need
+     * here and return the work to run on the same connection once the rows are
+     * gone, or null.
+     */
+    protected ConnectionManager.TransactionCallback beforeDelete(Connection connection, List<Long> ids)
+            throws SQLException {
+        return null;
+    }
+
+    /**
+     * Hook called after a row is deleted by id; see afterWrite
+     */
+    protected void afterDelete(Long id) {
+    }
+
     // Template methods to be implemented by subclasses
     protected abstract String getInsertSQL();
     protected abstract String getUpdateSQL();
@@ -0,0 +1,472 @@
+package com.syos.infrastructure.persistence.gateways;
+
+import com.syos.domain.entities.Bill;
+import com.syos.domain.entities.BillItem;
+import com.syos.domain.valueobjects.Money;
+import com.syos.infrastructure.config.DatabaseConfig;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Gateway for the daily_item_sales rollup table.
+ * Every bill save adds itself to its day's per-item rows in the same transaction,
+ * so item sales are read in O(days x items) however many bills there are. Bill
+ * counts and takings are read from bills through idx_bill_date instead: a single
+ * per-day totals row would be updated by every checkout and serialize them all.
+ *
+ * Deleting bills through BillGateway rebuilds their days. rebuild recomputes any
+ * range from bills and bill_items, for backfilling history or repairing a range
+ * after bills were changed by hand; each day with bills but no rollup rows is read
+ * from its bills meanwhile. Every rebuild bumps the version in rollup_versions,
+ * which readers that cache finished days' figures check (findVersion).
+ */
+public class SalesRollupGateway {
+    private static final String VERSION_NAME = "sales";
+    private static final int MISSING_TABLE_ERROR = 1146; // ER_NO_SUCH_TABLE
+
+    private final ConnectionManager connectionManager;
+
+    public SalesRollupGateway() {
+        this.connectionManager = new ConnectionManager();
+    }
+
+    /**
+     * Add a just-inserted bill to its day's rollup rows.
+     * Runs on the caller's connection so it commits or rolls back with the bill.
+     * Rows are upserted in item code order, so concurrent bills take the row locks
+     * in the same order. A row is only contended by bills selling the same item,
+     * which already wait for each other on that item's stock row.
+     * @param lineIds Generated bill_items ids, in the order of bill.getItems()
+     */
+    void recordBill(Connection connection, Bill bill, long[] lineIds) throws SQLException {
+        Date saleDate = Date.valueOf(bill.getBillDate().toLocalDate());
+        int billNumber = bill.getBillNumber().getValue();
+
+        Map<String, LineTotals> byCode = new TreeMap<>();
+        List<BillItem> items = bill.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            BillItem billItem = items.get(i);
+            byCode.computeIfAbsent(billItem.getItem().getCode().getValue(), code -> new LineTotals())
+                    .add(billItem.getQuantity().getValue(), billItem.getTotalPrice().getValue(), lineIds[i]);
+        }
+
+        String itemSql = "INSERT INTO daily_item_sales " +
+                "(sale_date, item_code, quantity, revenue, bill_count, first_bill_number, first_line_id) " +
+                "VALUES (?, ?, ?, ?, 1, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), " +
+                "revenue = revenue + VALUES(revenue), bill_count = bill_count + 1, " +
+                "first_bill_number = LEAST(first_bill_number, VALUES(first_bill_number)), " +
+                "first_line_id = LEAST(first_line_id, VALUES(first_line_id))";
+        if (!byCode.isEmpty()) {
+            try (PreparedStatement stmt = connection.prepareStatement(itemSql)) {
+                for (Map.Entry<String, LineTotals> entry : byCode.entrySet()) {
+                    LineTotals totals = entry.getValue();
+                    stmt.setDate(1, saleDate);
+                    stmt.setString(2, entry.getKey());
+                    stmt.setInt(3, totals.quantity);
+                    stmt.setBigDecimal(4, totals.revenue);
+                    stmt.setInt(5, billNumber);
+                    stmt.setLong(6, totals.firstLineId);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Sales per item over a date range, in the same shape and order as
+     * BillGateway.findItemSales but read from the rollup, also from one snapshot.
+     * Days that have bills but no rollup rows (history from before the rollup, not
+     * yet backfilled) are aggregated from their bills instead, in the same query.
+     * @param firstDay First day (inclusive)
+     * @param lastDay Last day (inclusive)
+     */
+    public BillGateway.SalesSummary findItemSales(LocalDate firstDay, LocalDate lastDay) {
+        return connectionManager.executeReadOnlySnapshot(connection -> {
+            // Counted from the covering idx_bill_date, without reading the bill rows
+            int transactions;
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT COUNT(*) as count FROM bills WHERE bill_date >= ? AND bill_date < ?")) {
+                setTimestampRange(stmt, firstDay, lastDay);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    transactions = rs.getInt("count");
+                }
+            }
+            List<LocalDate[]> uncovered = findUncoveredRuns(connection, firstDay, lastDay);
+
+            String sql = "SELECT u.item_code, i.name, SUM(u.quantity) as quantity, SUM(u.revenue) as revenue " +
+                    "FROM " + itemLinesSql(uncovered) + " u " +
+                    "LEFT JOIN items i ON i.code = u.item_code " +
+                    "GROUP BY u.item_code, i.name " +
+                    "ORDER BY MIN(u.first_bill_number), MIN(u.first_line_id)";
+            List<BillGateway.ItemSales> items = new ArrayList<>();
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                bindItemLines(stmt, firstDay, lastDay, uncovered);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String itemCode = rs.getString("item_code");
+                        String name = rs.getString("name");
+                        if (name == null) {
+                            throw new SQLException("Item " + itemCode + " on a bill not found");
+                        }
+                        items.add(new BillGateway.ItemSales(itemCode, name, rs.getInt("quantity"),
+                                new Money(rs.getBigDecimal("revenue"))));
+                    }
+                }
+            }
+            return new BillGateway.SalesSummary(transactions, items);
+        });
+    }
+
+    /**
+     * Bill count and takings (bill totals before discount) over a date range,
+     * read from bills through idx_bill_date
+     */
+    public DayTotals findTotals(LocalDate firstDay, LocalDate lastDay) {
+        return connectionManager.executeReadOnly(connection -> {
+            String sql = "SELECT COUNT(*) as count, SUM(total_amount) as total " +
+                    "FROM bills WHERE bill_date >= ? AND bill_date < ?";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                setTimestampRange(stmt, firstDay, lastDay);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    BigDecimal total = rs.getBigDecimal("total");
+                    return new DayTotals(rs.getInt("count"), new Money(total != null ? total : BigDecimal.ZERO));
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The rollup version, bumped by every rebuild in any application sharing the database
+     */
+    public long findVersion() {
+        return connectionManager.executeReadOnly(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT version FROM rollup_versions WHERE name = ?")) {
+                stmt.setString(1, VERSION_NAME);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("No '" + VERSION_NAME + "' row in rollup_versions");
+                    }
+                    return rs.getLong("version");
+                }
+            } catch (SQLException e) {
+                if (e.getErrorCode() == MISSING_TABLE_ERROR) {
+                    throw new SQLException("Table rollup_versions does not exist; " +
+                            "run sql/migrations/003_add_rollup_versions.sql", e);
+                }
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Average sale, discount given and most popular item over a date range, the
+     * figures BillStatisticsVisitor gathers from loaded bills, computed by MySQL.
+     * Bill figures come from bills through idx_bill_date, the item from the rollup
+     * (or from the bills for days the rollup does not cover), in one snapshot.
+     */
+    public SalesStatistics findStatistics(LocalDate firstDay, LocalDate lastDay) {
+        return connectionManager.executeReadOnlySnapshot(connection -> {
+            int billCount;
+            BigDecimal totalAmount;
+            BigDecimal totalDiscount;
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT COUNT(*) as count, COALESCE(SUM(total_amount), 0) as total, " +
+                    "COALESCE(SUM(discount), 0) as discount FROM bills WHERE bill_date >= ? AND bill_date < ?")) {
+                setTimestampRange(stmt, firstDay, lastDay);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    billCount = rs.getInt("count");
+                    totalAmount = rs.getBigDecimal("total");
+                    totalDiscount = rs.getBigDecimal("discount");
+                }
+            }
+            if (billCount == 0) {
+                return new SalesStatistics(0, new Money(BigDecimal.ZERO), new Money(BigDecimal.ZERO), null);
+            }
+
+            List<LocalDate[]> uncovered = findUncoveredRuns(connection, firstDay, lastDay);
+
+            // By name, as BillStatisticsVisitor counts; ties go to the first name alphabetically
+            String sql = "SELECT i.name FROM " + itemLinesSql(uncovered) + " u " +
+                    "JOIN items i ON i.code = u.item_code " +
+                    "GROUP BY i.name ORDER BY SUM(u.quantity) DESC, i.name LIMIT 1";
+            String mostPopular;
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                bindItemLines(stmt, firstDay, lastDay, uncovered);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    mostPopular = rs.next() ? rs.getString("name") : null;
+                }
+            }
+            return new SalesStatistics(billCount, new Money(totalAmount.subtract(totalDiscount)),
+                    new Money(totalDiscount), mostPopular);
+        });
+    }
+
+    /**
+     * Days in the range with no rollup rows, merged into runs of consecutive days.
+     * They are read from their bills, which for a day without sales finds nothing
+     * through idx_bill_date. A day is rebuilt in one transaction, so it is either
+     * covered in full or not at all.
+     */
+    private static List<LocalDate[]> findUncoveredRuns(Connection connection, LocalDate firstDay,
+                                                       LocalDate lastDay) throws SQLException {
+        Set<LocalDate> covered = new HashSet<>();
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT DISTINCT s.sale_date FROM daily_item_sales s WHERE s.sale_date BETWEEN ? AND ?")) {
+            setRange(stmt, firstDay, lastDay);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    covered.add(rs.getDate("sale_date").toLocalDate());
+                }
+            }
+        }
+
+        List<LocalDate[]> runs = new ArrayList<>();
+        LocalDate[] run = null;
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            if (covered.contains(day)) {
+                run = null;
+            } else if (run != null) {
+                run[1] = day;
+            } else {
+                run = new LocalDate[]{day, day};
+                runs.add(run);
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Derived table of item lines over a date range: the rollup rows, plus the bill
+     * lines of the uncovered days. Columns: item_code, quantity, revenue,
+     * first_bill_number, first_line_id. Bind with bindItemLines.
+     */
+    private static String itemLinesSql(List<LocalDate[]> uncovered) {
+        StringBuilder sql = new StringBuilder("(SELECT s.item_code, s.quantity, s.revenue, " +
+                "s.first_bill_number, s.first_line_id FROM daily_item_sales s WHERE s.sale_date BETWEEN ? AND ?");
+        if (!uncovered.isEmpty()) {
+            sql.append(" UNION ALL SELECT bi.item_code, bi.quantity, bi.quantity * bi.unit_price, " +
+                    "bi.bill_number, bi.id FROM bills b JOIN bill_items bi ON bi.bill_number = b.bill_number WHERE ");
+            for (int i = 0; i < uncovered.size(); i++) {
+                sql.append(i == 0 ? "" : " OR ").append("(b.bill_date >= ? AND b.bill_date < ?)");
+            }
+        }
+        return sql.append(")").toString();
+    }
+
+    private static void bindItemLines(PreparedStatement stmt, LocalDate firstDay, LocalDate lastDay,
+                                      List<LocalDate[]> uncovered) throws SQLException {
+        setRange(stmt, firstDay, lastDay);
+        int index = 3;
+        for (LocalDate[] run : uncovered) {
+            stmt.setTimestamp(index++, Timestamp.valueOf(run[0].atStartOfDay()));
+            stmt.setTimestamp(index++, Timestamp.valueOf(run[1].plusDays(1).atStartOfDay()));
+        }
+    }
+
+    /**
+     * Recompute the rollups for a date range from bills and bill_items.
+     * The range is split into chunks of chunkDays, rebuilt in parallel, each in its
+     * own transaction. Bills saved for a chunk's days while it is being rebuilt can
+     * be missed, so rebuild today only when no sales are running.
+     * @return Number of daily_item_sales rows written
+     */
+    public int rebuild(LocalDate firstDay, LocalDate lastDay, int chunkDays, int threads) {
+        if (chunkDays <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Chunk days and threads must be positive");
+        }
+
+        List<LocalDate[]> chunks = new ArrayList<>();
+        for (LocalDate start = firstDay; !start.isAfter(lastDay); start = start.plusDays(chunkDays)) {
+            LocalDate end = start.plusDays(chunkDays - 1);
+            chunks.add(new LocalDate[]{start, end.isAfter(lastDay) ? lastDay : end});
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, chunks.size())));
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (LocalDate[] chunk : chunks) {
+                results.add(executor.submit(() -> rebuildChunk(chunk[0], chunk[1])));
+            }
+            int rows = 0;
+            for (Future<Integer> result : results) {
+                rows += result.get();
+            }
+            // Once, after every chunk; bumping per chunk would serialize the chunks on the version row
+            connectionManager.executeWithConnection(connection -> {
+                bumpVersion(connection);
+                return null;
+            });
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Sales rollup rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Sales rollup rebuild failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Recompute the rollups for every day that has bills
+     * @return Number of daily_item_sales rows written
+     */
+    public int rebuildAll() {
+        LocalDate[] range = connectionManager.executeWithConnection(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT MIN(bill_date) as first_date, MAX(bill_date) as last_date FROM bills");
+                 ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                Timestamp first = rs.getTimestamp("first_date");
+                Timestamp last = rs.getTimestamp("last_date");
+                return first == null ? null : new LocalDate[]{
+                        first.toLocalDateTime().toLocalDate(), last.toLocalDateTime().toLocalDate()};
+            }
+        });
+        if (range == null) {
+            return 0;
+        }
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        return rebuild(range[0], range[1], config.getSalesRollupChunkDays(), config.getSalesRollupThreads());
+    }
+
+    private int rebuildChunk(LocalDate firstDay, LocalDate lastDay) {
+        int[] rows = new int[1];
+        connectionManager.executeWithTransaction(connection -> rows[0] = rebuildRange(connection, firstDay, lastDay));
+        return rows[0];
+    }
+
+    /**
+     * Rebuild the given days on the caller's connection, so the rebuild commits or
+     * rolls back with the change that made it necessary (BillGateway deletes)
+     */
+    void rebuildDays(Connection connection, Collection<LocalDate> days) throws SQLException {
+        for (LocalDate day : days) {
+            rebuildRange(connection, day, day);
+        }
+        bumpVersion(connection);
+    }
+
+    private static void bumpVersion(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "UPDATE rollup_versions SET version = version + 1 WHERE name = ?")) {
+            stmt.setString(1, VERSION_NAME);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * @return Number of daily_item_sales rows written
+     */
+    private int rebuildRange(Connection connection, LocalDate firstDay, LocalDate lastDay) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "DELETE FROM daily_item_sales WHERE sale_date BETWEEN ? AND ?")) {
+            setRange(stmt, firstDay, lastDay);
+            stmt.executeUpdate();
+        }
+
+        // Bills are selected by half-open timestamp range so idx_bill_date is used
+        String itemSql = "INSERT INTO daily_item_sales " +
+                "(sale_date, item_code, quantity, revenue, bill_count, first_bill_number, first_line_id) " +
+                "SELECT DATE(b.bill_date), bi.item_code, SUM(bi.quantity), SUM(bi.quantity * bi.unit_price), " +
+                "COUNT(DISTINCT bi.bill_number), MIN(bi.bill_number), MIN(bi.id) " +
+                "FROM bills b JOIN bill_items bi ON bi.bill_number = b.bill_number " +
+                "WHERE b.bill_date >= ? AND b.bill_date < ? " +
+                "GROUP BY DATE(b.bill_date), bi.item_code";
+        try (PreparedStatement stmt = connection.prepareStatement(itemSql)) {
+            setTimestampRange(stmt, firstDay, lastDay);
+            return stmt.executeUpdate();
+        }
+    }
+
+    private static void setRange(PreparedStatement stmt, LocalDate firstDay, LocalDate lastDay) throws SQLException {
+        stmt.setDate(1, Date.valueOf(firstDay));
+        stmt.setDate(2, Date.valueOf(lastDay));
+    }
+
+    private static void setTimestampRange(PreparedStatement stmt, LocalDate firstDay, LocalDate lastDay)
+            throws SQLException {
+        stmt.setTimestamp(1, Timestamp.valueOf(firstDay.atStartOfDay()));
+        stmt.setTimestamp(2, Timestamp.valueOf(lastDay.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * One bill's lines for an item, merged
+     */
+    private static final class LineTotals {
+        private int quantity;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private long firstLineId = Long.MAX_VALUE;
+
+        private void add(int quantity, BigDecimal revenue, long lineId) {
+            this.quantity += quantity;
+            this.revenue = this.revenue.add(revenue);
+            this.firstLineId = Math.min(firstLineId, lineId);
+        }
+    }
+
+    /**
+     * Sales figures over a period, with the getters BillStatisticsVisitor has
+     */
+    public static final class SalesStatistics {
+        private final int billCount;
+        private final Money totalRevenue;
+        private final Money totalDiscount;
+        private final String mostPopularItem;
+
+        public SalesStatistics(int billCount, Money totalRevenue, Money totalDiscount, String mostPopularItem) {
+            this.billCount = billCount;
+            this.totalRevenue = totalRevenue;
+            this.totalDiscount = totalDiscount;
+            this.mostPopularItem = mostPopularItem;
+        }
+
+        public int getBillCount() { return billCount; }
+        public Money getTotalRevenue() { return totalRevenue; }
+        public Money getTotalDiscount() { return totalDiscount; }
+        public String getMostPopularItem() { return mostPopularItem != null ? mostPopularItem : "N/A"; }
+
+        public Money getAverageTransaction() {
+            if (billCount == 0) {
+                return new Money(BigDecimal.ZERO);
+            }
+            return new Money(totalRevenue.getValue().divide(BigDecimal.valueOf(billCount), 2, RoundingMode.HALF_UP));
+        }
+    }
+
+    /**
+     * Bill count and takings over a period
+     */
+    public static final class DayTotals {
+        private final int billCount;
+        private final Money totalAmount;
+
+        public DayTotals(int billCount, Money totalAmount) {
+            this.billCount = billCount;
+            this.totalAmount = totalAmount;
+        }
+
+        public int getBillCount() { return billCount; }
+        public Money getTotalAmount() { return totalAmount; }
+    }
+}
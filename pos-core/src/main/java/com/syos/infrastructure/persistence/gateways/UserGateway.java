@@ -149,8 +149,8 @@ public class UserGateway extends OracleDatabaseGateway<User> {
         return connectionManager.executeWithConnection(connection -> {
             String sql = "SELECT * FROM users ORDER BY username";
             List<User> users = new ArrayList<>();
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     users.add(mapResultSetToEntity(rs));
                 }
@@ -167,8 +167,8 @@ public class UserGateway extends OracleDatabaseGateway<User> {
         return connectionManager.executeWithConnection(connection -> {
             String sql = "SELECT * FROM users WHERE last_login_at >= DATE_SUB(NOW(), INTERVAL 30 DAY) ORDER BY last_login_at DESC";
             List<User> users = new ArrayList<>();
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     users.add(mapResultSetToEntity(rs));
                 }
@@ -291,8 +291,8 @@ public class UserGateway extends OracleDatabaseGateway<User> {
     public int getTotalUserCount() {
         return connectionManager.executeWithConnection(connection -> {
             String sql = "SELECT COUNT(*) FROM users";
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     return rs.getInt(1);
                 }
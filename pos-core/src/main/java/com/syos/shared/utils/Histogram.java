@@ -0,0 +1,89 @@
+package com.syos.shared.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram with power-of-two buckets.
+ * Bucket i holds values in [2^(i-1), 2^i), bucket 0 holds zero, so percentiles are
+ * reported as the upper bound of their bucket (at most 2x too high).
+ * The unit of the recorded values is up to the caller.
+ */
+public class Histogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(bucketFor(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * @param percentile Between 0 and 100
+     * @return Upper bound of the bucket containing that percentile, or 0 when empty
+     */
+    public long getPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Counts per bucket; index i covers values below 2^i
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    private static int bucketFor(long value) {
+        return value == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.1f, p50=%d, p95=%d, p99=%d, max=%d",
+                getCount(), getMean(), getPercentile(50), getPercentile(95), getPercentile(99), getMax());
+    }
+}
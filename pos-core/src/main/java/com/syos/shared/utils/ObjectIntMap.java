@@ -0,0 +1,130 @@
+package com.syos.shared.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Map from keys to primitive int counts, for tallies updated once per bill line.
+ * Keys and counts sit in parallel arrays with linear probing, so adding to a count
+ * neither boxes an Integer nor allocates a map entry. Keys are never removed.
+ *
+ * Not thread-safe: give each thread its own and combine them with addAll.
+ */
+public class ObjectIntMap<K> {
+    private static final int MIN_CAPACITY = 16;
+
+    private Object[] keys;
+    private int[] values;
+    private int size;
+
+    public ObjectIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize Number of keys to hold before the table grows
+     */
+    public ObjectIntMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new Object[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Add delta to the count for key, starting from zero if the key is new
+     * @return The new count
+     */
+    public int add(K key, int delta) {
+        Objects.requireNonNull(key, "key");
+        int slot = slotFor(key, keys);
+        if (keys[slot] == null) {
+            keys[slot] = key;
+            size++;
+            values[slot] = delta;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+            return delta;
+        }
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    /**
+     * @return The count for key, or 0 if it was never added
+     */
+    public int get(K key) {
+        int slot = slotFor(key, keys);
+        return keys[slot] == null ? 0 : values[slot];
+    }
+
+    /**
+     * Add every count in other to this map; other is unchanged
+     */
+    @SuppressWarnings("unchecked")
+    public void addAll(ObjectIntMap<K> other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != null) {
+                add((K) other.keys[i], other.values[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<K> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept((K) keys[i], values[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return A boxed copy, for callers that want a java.util.Map
+     */
+    public Map<K, Integer> toMap() {
+        Map<K, Integer> map = new HashMap<>(size * 2);
+        forEach(map::put);
+        return map;
+    }
+
+    private void grow() {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new Object[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slotFor(oldKeys[i], keys);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * @return The slot holding key, or the empty slot where it would go
+     */
+    private static int slotFor(Object key, Object[] table) {
+        int mask = table.length - 1;
+        int h = key.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask; // Spread the high bits, as HashMap does
+        while (table[slot] != null && !table[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,147 @@
+package com.syos.shared.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of locks shared out by key hash.
+ * Work on different keys usually runs in parallel, while work on the same key is
+ * serialised. Work that needs several keys takes their stripes in ascending stripe
+ * order, so two callers can never hold them in opposite orders and deadlock.
+ *
+ * Time spent waiting for a contended stripe is recorded per stripe.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final AtomicLongArray waitNanos;
+    private final AtomicLongArray contendedCounts;
+    private final Histogram waitHistogram = new Histogram(); // microseconds
+
+    /**
+     * @param stripeCount Number of stripes, rounded up to a power of two
+     */
+    public StripedLock(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.waitNanos = new AtomicLongArray(size);
+        this.contendedCounts = new AtomicLongArray(size);
+    }
+
+    /**
+     * Run the work while holding the stripes for all given keys
+     */
+    public <T> T withLocks(Supplier<T> work, Object... keys) {
+        int[] held = stripesFor(keys);
+        for (int i = 0; i < held.length; i++) {
+            lockStripe(held[i]);
+        }
+        try {
+            return work.get();
+        } finally {
+            for (int i = held.length - 1; i >= 0; i--) {
+                stripes[held[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Run the work while holding the stripes for all given keys
+     */
+    public void withLocks(Runnable work, Object... keys) {
+        withLocks(() -> {
+            work.run();
+            return null;
+        }, keys);
+    }
+
+    public int stripeFor(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public long getWaitNanos(int stripe) {
+        return waitNanos.get(stripe);
+    }
+
+    public long getContendedCount(int stripe) {
+        return contendedCounts.get(stripe);
+    }
+
+    public long getTotalWaitNanos() {
+        long total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            total += waitNanos.get(i);
+        }
+        return total;
+    }
+
+    public long getTotalContendedCount() {
+        long total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            total += contendedCounts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @return Distribution of wait times, in microseconds, for contended acquisitions
+     */
+    public Histogram getWaitHistogram() {
+        return waitHistogram;
+    }
+
+    /**
+     * Distinct stripes for the keys, in the order they must be locked
+     */
+    private int[] stripesFor(Object[] keys) {
+        int[] indexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            indexes[i] = stripeFor(keys[i]);
+        }
+        return Arrays.stream(indexes).distinct().sorted().toArray();
+    }
+
+    private void lockStripe(int stripe) {
+        ReentrantLock lock = stripes[stripe];
+        if (lock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+        waitNanos.addAndGet(stripe, waited);
+        contendedCounts.incrementAndGet(stripe);
+        waitHistogram.record(TimeUnit.NANOSECONDS.toMicros(waited));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Stripes: ").append(stripes.length)
+                .append(", Contended: ").append(getTotalContendedCount())
+                .append(", Waited: ").append(TimeUnit.NANOSECONDS.toMillis(getTotalWaitNanos())).append("ms");
+        for (int i = 0; i < stripes.length; i++) {
+            long contended = contendedCounts.get(i);
+            if (contended > 0) {
+                sb.append(String.format("%n  stripe %d: %d waits, %.1fms",
+                        i, contended, waitNanos.get(i) / 1_000_000.0));
+            }
+        }
+        return sb.toString();
+    }
+}
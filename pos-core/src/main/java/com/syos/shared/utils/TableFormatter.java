@@ -0,0 +1,210 @@
+package com.syos.shared.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-width text table layout, defined once and shared by every row.
+ * Rows come out exactly as String.format with "%-Ns" / "%Ns" / "%Nd" columns
+ * joined by single spaces and ended with %n would print them, but cells are
+ * padded straight into the caller's StringBuilder: no format string is parsed
+ * and int cells are not boxed. Text longer than its column is not truncated.
+ *
+ * A formatter is immutable and can be shared between threads; each row is
+ * written through a short-lived Row.
+ */
+public final class TableFormatter {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final char[] SPACES = new char[128];
+
+    static {
+        Arrays.fill(SPACES, ' ');
+    }
+
+    private final int[] widths;
+    private final boolean[] leftAligned;
+    private final String header; // null when no column has a title
+
+    private TableFormatter(Builder builder) {
+        int columns = builder.widths.size();
+        this.widths = new int[columns];
+        this.leftAligned = new boolean[columns];
+        for (int i = 0; i < columns; i++) {
+            widths[i] = builder.widths.get(i);
+            leftAligned[i] = builder.leftAligned.get(i);
+        }
+        this.header = builder.hasTitles ? renderHeader(builder.titles) : null;
+    }
+
+    /**
+     * Append the column titles as one row
+     */
+    public StringBuilder appendHeader(StringBuilder out) {
+        if (header == null) {
+            throw new IllegalStateException("Table has no column titles");
+        }
+        return out.append(header);
+    }
+
+    /**
+     * Start a row in out; add one cell per column, then call end()
+     */
+    public Row row(StringBuilder out) {
+        return new Row(out);
+    }
+
+    /**
+     * @return width characters of c, for rules under headers
+     */
+    public static String rule(char c, int width) {
+        char[] line = new char[width];
+        Arrays.fill(line, c);
+        return new String(line);
+    }
+
+    private String renderHeader(List<String> titles) {
+        StringBuilder out = new StringBuilder();
+        Row row = row(out);
+        for (String title : titles) {
+            row.cell(title);
+        }
+        row.end();
+        return out.toString();
+    }
+
+    private static void pad(StringBuilder out, int count) {
+        while (count > 0) {
+            int chunk = Math.min(count, SPACES.length);
+            out.append(SPACES, 0, chunk);
+            count -= chunk;
+        }
+    }
+
+    private static int length(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        int length = value < 0 ? 2 : 1;
+        for (long rest = Math.abs(value); rest >= 10; rest /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * One row being written; cells are taken in column order
+     */
+    public final class Row {
+        private final StringBuilder out;
+        private int column;
+
+        private Row(StringBuilder out) {
+            this.out = out;
+        }
+
+        public Row cell(CharSequence text) {
+            CharSequence value = text != null ? text : "null";
+            int padding = startCell() - value.length();
+            if (leftAligned[column]) {
+                out.append(value);
+                pad(out, padding);
+            } else {
+                pad(out, padding);
+                out.append(value);
+            }
+            column++;
+            return this;
+        }
+
+        public Row cell(long value) {
+            int padding = startCell() - length(value);
+            if (leftAligned[column]) {
+                out.append(value);
+                pad(out, padding);
+            } else {
+                pad(out, padding);
+                out.append(value);
+            }
+            column++;
+            return this;
+        }
+
+        /**
+         * Cell showing value.toString(), or "null"
+         */
+        public Row cell(Object value) {
+            return cell(String.valueOf(value));
+        }
+
+        /**
+         * Finish the row with a line separator
+         */
+        public StringBuilder end() {
+            if (column != widths.length) {
+                throw new IllegalStateException("Row has " + column + " cells, table has " + widths.length + " columns");
+            }
+            return out.append(LINE_SEPARATOR);
+        }
+
+        /**
+         * @return The width of the cell about to be written
+         */
+        private int startCell() {
+            if (column >= widths.length) {
+                throw new IllegalStateException("Row already has " + widths.length + " cells");
+            }
+            if (column > 0) {
+                out.append(' ');
+            }
+            return widths[column];
+        }
+    }
+
+    public static class Builder {
+        private final List<Integer> widths = new ArrayList<>();
+        private final List<Boolean> leftAligned = new ArrayList<>();
+        private final List<String> titles = new ArrayList<>();
+        private boolean hasTitles;
+
+        /**
+         * Column padded on the right, like %-Ns
+         */
+        public Builder left(String title, int width) {
+            return column(title, width, true);
+        }
+
+        /**
+         * Column padded on the left, like %Ns and %Nd
+         */
+        public Builder right(String title, int width) {
+            return column(title, width, false);
+        }
+
+        public Builder left(int width) {
+            return column(null, width, true);
+        }
+
+        public Builder right(int width) {
+            return column(null, width, false);
+        }
+
+        public TableFormatter build() {
+            if (widths.isEmpty()) {
+                throw new IllegalStateException("Table needs at least one column");
+            }
+            return new TableFormatter(this);
+        }
+
+        private Builder column(String title, int width, boolean left) {
+            if (width <= 0) {
+                throw new IllegalArgumentException("Column width must be positive");
+            }
+            widths.add(width);
+            leftAligned.add(left);
+            titles.add(title != null ? title : "");
+            hasTitles |= title != null;
+            return this;
+        }
+    }
+}
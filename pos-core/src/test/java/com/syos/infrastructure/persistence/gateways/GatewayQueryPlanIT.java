@@ -0,0 +1,334 @@
+package com.syos.infrastructure.persistence.gateways;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mysql.cj.MysqlConnection;
+import com.mysql.cj.Query;
+import com.mysql.cj.interceptors.QueryInterceptor;
+import com.mysql.cj.log.Log;
+import com.mysql.cj.protocol.Resultset;
+import com.mysql.cj.protocol.ServerSession;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Query plans of the gateways' hot queries, checked against a real MySQL database.
+ * Each test calls a gateway method, records the SQL it sends through a driver query
+ * interceptor, EXPLAINs every recorded statement and asserts the index each table
+ * is read through. A change to a gateway query that loses its index fails here.
+ *
+ * Only runs with the db-it profile, against a scratch database created from
+ * sql/create_database.sql. Its bills and rollups are replaced with volume data:
+ *   mvn -pl pos-core -Pdb-it test -Ddb.it.url=jdbc:mysql://localhost:3306/syos_it
+ */
+class GatewayQueryPlanIT {
+    private static final int BILLS = 100_000;
+    private static final int VOLUME_ITEMS = 20_000;
+
+    // 0-9 as a derived table; five cross joined copies count to 100,000
+    private static final String DIGITS = "(SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL " +
+            "SELECT 3 UNION ALL SELECT 4 UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 " +
+            "UNION ALL SELECT 8 UNION ALL SELECT 9)";
+    private static final String SEQUENCE = "(SELECT 1 + a.d + 10 * b.d + 100 * c.d + 1000 * e.d + 10000 * f.d AS n " +
+            "FROM " + DIGITS + " a, " + DIGITS + " b, " + DIGITS + " c, " + DIGITS + " e, " + DIGITS + " f) seq";
+
+    private static String url;
+    private static String username;
+    private static String password;
+
+    private BillGateway billGateway;
+    private ItemGateway itemGateway;
+
+    @BeforeAll
+    static void loadVolumeData() throws SQLException {
+        url = System.getProperty("db.it.url");
+        username = System.getProperty("db.it.username", "root");
+        password = System.getProperty("db.it.password", "");
+
+        // Read by DatabaseConfig when the pool is first created
+        System.setProperty("db.url", url + (url.contains("?") ? "&" : "?")
+                + "queryInterceptors=" + StatementRecorder.class.getName());
+        System.setProperty("db.username", username);
+        System.setProperty("db.password", password);
+        System.setProperty("db.pool.serverPrepStmts", "false"); // Recorded SQL then carries its values
+        System.setProperty("db.batch.rewrite", "false");
+        System.setProperty("app.cache.items.maxSize", "0");
+        System.setProperty("app.catalog.replica.enabled", "false");
+        System.setProperty("app.expiry.sweep.enabled", "false");
+
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+            for (String table : new String[] {"bill_items", "bills", "daily_item_sales"}) {
+                stmt.execute("TRUNCATE TABLE " + table);
+            }
+            stmt.execute("DELETE FROM items WHERE code LIKE 'SKU%'");
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+
+            stmt.execute("INSERT IGNORE INTO items (code, name, price, quantity, state, purchase_date, expiry_date) " +
+                    "VALUES ('MILK001', 'Fresh Milk 1L', 3.50, 1000000, 'ON_SHELF', CURDATE(), CURDATE() + INTERVAL 7 DAY), " +
+                    "('BREAD001', 'White Bread', 2.50, 1000000, 'ON_SHELF', CURDATE(), CURDATE() + INTERVAL 3 DAY)");
+
+            // About a year of trading, one bill every five minutes
+            stmt.execute("INSERT INTO bills (bill_number, bill_date, total_amount, discount, cash_tendered, " +
+                    "change_amount, transaction_type) " +
+                    "SELECT n, NOW() - INTERVAL (n * 5) MINUTE, 7.50, 0.00, 10.00, 2.50, " +
+                    "IF(n % 10 = 0, 'ONLINE', 'IN_STORE') FROM " + SEQUENCE + " WHERE n <= " + BILLS);
+            stmt.execute("INSERT INTO bill_items (bill_number, item_code, quantity, unit_price, total_price) " +
+                    "SELECT bill_number, 'MILK001', 1, 2.50, 2.50 FROM bills " +
+                    "UNION ALL SELECT bill_number, 'BREAD001', 2, 2.50, 5.00 FROM bills");
+            stmt.execute("UPDATE bill_sequence SET next_value = " + (BILLS + 1) + " WHERE name = 'bills'");
+
+            stmt.execute("INSERT INTO items (code, name, price, quantity, state, purchase_date, expiry_date) " +
+                    "SELECT CONCAT('SKU', LPAD(n, 6, '0')), CONCAT('Volume item ', n), 1.00 + (n % 500) / 10, " +
+                    "n % 200, ELT(1 + n % 4, 'IN_STORE', 'ON_SHELF', 'EXPIRED', 'SOLD_OUT'), " +
+                    "CURDATE() - INTERVAL 30 DAY, CURDATE() + INTERVAL (n % 365) - 30 DAY " +
+                    "FROM " + SEQUENCE + " WHERE n <= " + VOLUME_ITEMS);
+
+            stmt.execute("INSERT INTO daily_item_sales (sale_date, item_code, quantity, revenue, bill_count, " +
+                    "first_bill_number, first_line_id) " +
+                    "SELECT DATE(b.bill_date), bi.item_code, SUM(bi.quantity), SUM(bi.quantity * bi.unit_price), " +
+                    "COUNT(DISTINCT bi.bill_number), MIN(bi.bill_number), MIN(bi.id) " +
+                    "FROM bills b JOIN bill_items bi ON bi.bill_number = b.bill_number " +
+                    "GROUP BY DATE(b.bill_date), bi.item_code");
+
+            stmt.execute("ANALYZE TABLE bills, bill_items, items, daily_item_sales");
+        }
+    }
+
+    @AfterAll
+    static void closePool() {
+        DatabaseConnectionPool.shutdownAll();
+    }
+
+    @BeforeEach
+    void createGateways() {
+        DatabaseConnectionPool pool = DatabaseConnectionPool.getInstance();
+        billGateway = new BillGateway(pool);
+        itemGateway = new ItemGateway(pool);
+        StatementRecorder.clear();
+    }
+
+    @Test
+    void billsForOneDayUseTheDateIndex() throws SQLException {
+        billGateway.findByDate(LocalDate.now());
+        assertPlans(Map.of("bills", "idx_bill_date", "bill_items", "idx_bill_number", "items", "PRIMARY"));
+    }
+
+    @Test
+    void billsForADateRangeUseTheDateIndex() throws SQLException {
+        billGateway.findByDateRange(LocalDate.now().minusDays(7), LocalDate.now());
+        assertPlans(Map.of("bills", "idx_bill_date", "bill_items", "idx_bill_number", "items", "PRIMARY"));
+    }
+
+    @Test
+    void billPagesWalkTheDateIndex() throws SQLException {
+        BillGateway.Page first = billGateway.findPage(null, 50);
+        billGateway.findPage(first.getNext(), 50);
+        assertPlans(Map.of("bills", "idx_bill_date", "bill_items", "idx_bill_number", "items", "PRIMARY"));
+    }
+
+    @Test
+    void streamingEveryBillWalksTheDateIndexInPages() throws SQLException {
+        int[] streamed = {0};
+        billGateway.streamAll(bill -> streamed[0]++);
+        assertEquals(countBills(), streamed[0]);
+        assertPlans(Map.of("bills", "idx_bill_date", "bill_items", "idx_bill_number", "items", "PRIMARY"));
+        assertNoFilesort("bills");
+    }
+
+    @Test
+    void itemSalesForADayStartFromTheDateIndex() throws SQLException {
+        billGateway.findItemSales(LocalDate.now(), LocalDate.now());
+        assertPlans(Map.of("b", "idx_bill_date", "bi", "idx_bill_number", "i", "PRIMARY"));
+    }
+
+    @Test
+    void salesRollupReadsByDay() throws SQLException {
+        SalesRollupGateway rollup = new SalesRollupGateway();
+        rollup.findItemSales(LocalDate.now().minusDays(30), LocalDate.now());
+        rollup.findTotals(LocalDate.now(), LocalDate.now());
+        assertPlans(Map.of("s", "PRIMARY", "i", "PRIMARY", "bills", "idx_bill_date"));
+    }
+
+    @Test
+    void daysMissingFromTheRollupAreReadFromTheirBills() throws SQLException {
+        LocalDate firstDay = LocalDate.now().minusDays(10);
+        LocalDate lastDay = LocalDate.now().minusDays(1);
+        LocalDate missing = LocalDate.now().minusDays(5);
+        SalesRollupGateway rollup = new SalesRollupGateway();
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM daily_item_sales WHERE sale_date = '" + missing + "'");
+        }
+        try {
+            BillGateway.SalesSummary fromBills = billGateway.findItemSales(firstDay, lastDay);
+            BillGateway.SalesSummary fromRollup = rollup.findItemSales(firstDay, lastDay);
+            assertEquals(fromBills.getTransactionCount(), fromRollup.getTransactionCount());
+            assertEquals(fromBills.getItems().size(), fromRollup.getItems().size());
+            for (int i = 0; i < fromBills.getItems().size(); i++) {
+                BillGateway.ItemSales expected = fromBills.getItems().get(i);
+                BillGateway.ItemSales actual = fromRollup.getItems().get(i);
+                assertEquals(expected.getItemCode(), actual.getItemCode());
+                assertEquals(expected.getQuantity(), actual.getQuantity());
+                assertEquals(expected.getRevenue(), actual.getRevenue());
+            }
+        } finally {
+            rollup.rebuild(missing, missing, 1, 1);
+        }
+    }
+
+    @Test
+    void deletingABillRebuildsItsDayByDate() throws SQLException {
+        billGateway.delete((long) BILLS);
+        // The bill by primary key; its day's rollup rebuilt through the date index
+        assertPlans(Map.of("bills", "PRIMARY", "b", "idx_bill_date", "bi", "idx_bill_number",
+                "daily_item_sales", "PRIMARY"));
+    }
+
+    @Test
+    void itemLookupsAndStockDecrementsUseThePrimaryKey() throws SQLException {
+        itemGateway.findByCode("MILK001");
+        itemGateway.decrementStock(Map.of("MILK001", 1, "BREAD001", 1));
+        assertPlans(Map.of("items", "PRIMARY"));
+    }
+
+    @Test
+    void billNumberBlocksUpdateOneSequenceRow() throws SQLException {
+        BillNumberAllocator allocator = new BillNumberAllocator(50);
+        try {
+            allocator.next();
+        } finally {
+            allocator.close();
+        }
+        assertPlans(Map.of("bill_sequence", "PRIMARY"));
+    }
+
+    /**
+     * EXPLAIN every statement recorded since the test started. Each table in
+     * expectedKeys must appear in some plan, and be read through that key, and
+     * never by a full table scan, wherever it appears.
+     */
+    private static void assertPlans(Map<String, String> expectedKeys) throws SQLException {
+        List<String> statements = StatementRecorder.recorded();
+        assertFalse(statements.isEmpty(), "No statements were recorded");
+
+        List<String> seen = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement stmt = connection.createStatement()) {
+            for (String sql : statements) {
+                try (ResultSet plan = stmt.executeQuery("EXPLAIN " + sql)) {
+                    while (plan.next()) {
+                        String table = plan.getString("table"); // null for "No tables used"
+                        String expectedKey = table != null ? expectedKeys.get(table) : null;
+                        if (expectedKey == null) {
+                            continue;
+                        }
+                        seen.add(table);
+                        assertEquals(expectedKey, plan.getString("key"), "Index used for " + table + " in: " + sql);
+                        assertFalse("ALL".equals(plan.getString("type")), "Full scan of " + table + " in: " + sql);
+                    }
+                }
+            }
+        }
+        for (String table : expectedKeys.keySet()) {
+            assertTrue(seen.contains(table), "No recorded statement read " + table + ": " + statements);
+        }
+    }
+
+    /**
+     * The table is read in index order wherever it appears in the recorded statements
+     */
+    private static void assertNoFilesort(String table) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement stmt = connection.createStatement()) {
+            for (String sql : StatementRecorder.recorded()) {
+                try (ResultSet plan = stmt.executeQuery("EXPLAIN " + sql)) {
+                    while (plan.next()) {
+                        String extra = plan.getString("Extra");
+                        assertFalse(table.equals(plan.getString("table")) && extra != null
+                                && extra.contains("Using filesort"), "Filesort of " + table + " in: " + sql);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int countBills() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM bills")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Records the SQL of every SELECT, UPDATE, DELETE and INSERT ... SELECT the gateways send.
+     * Created by the driver for each connection, named in the queryInterceptors URL property.
+     */
+    public static final class StatementRecorder implements QueryInterceptor {
+        private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        static void clear() {
+            statements.clear();
+        }
+
+        static List<String> recorded() {
+            synchronized (statements) {
+                return new ArrayList<>(statements);
+            }
+        }
+
+        @Override
+        public QueryInterceptor init(MysqlConnection conn, Properties props, Log log) {
+            return this;
+        }
+
+        @Override
+        public <T extends Resultset> T preProcess(Supplier<String> sql, Query interceptedQuery) {
+            String text = sql.get();
+            if (text != null) {
+                String verb = text.trim().split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+                boolean insertSelect = verb.equals("INSERT") && text.toUpperCase(Locale.ROOT).contains(" SELECT ");
+                if (verb.equals("SELECT") || verb.equals("UPDATE") || verb.equals("DELETE") || insertSelect) {
+                    statements.add(text);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean executeTopLevelOnly() {
+            return true;
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public <T extends Resultset> T postProcess(Supplier<String> sql, Query interceptedQuery,
+                                                   T originalResultSet, ServerSession serverSession) {
+            return null;
+        }
+    }
+}
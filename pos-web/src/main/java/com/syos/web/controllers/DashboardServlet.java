@@ -3,8 +3,8 @@ package com.syos.web.controllers;
 import com.syos.application.services.SalesService;
 import com.syos.application.services.InventoryService;
 import com.syos.domain.entities.Bill;
-import com.syos.domain.entities.Item;
 import com.syos.infrastructure.factories.ServiceFactory;
+import com.syos.infrastructure.persistence.gateways.SalesRollupGateway;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,12 +14,13 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @WebServlet(name = "DashboardServlet", urlPatterns = {"/dashboard"})
 public class DashboardServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(DashboardServlet.class);
+    private static final int RECENT_BILLS = 10; // Shown under Recent Transactions
     private SalesService salesService;
     private InventoryService inventoryService;
 
@@ -37,22 +38,17 @@ public class DashboardServlet extends HttpServlet {
             throws ServletException, IOException {
 
         try {
-            // Fetch dashboard metrics
-            List<Bill> todaysBills = salesService.getBillsForToday();
-            List<Item> lowStockItems = inventoryService.getLowStockItems();
-            List<Item> expiringItems = inventoryService.getExpiringItems();
-
-            // Calculate today's revenue
-            BigDecimal todaysRevenue = todaysBills.stream()
-                    .map(bill -> bill.getTotalAmount().getValue())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Fetch dashboard metrics; sales and stock figures come from aggregates, not full lists
+            List<Bill> recentBills = salesService.getRecentBillsForToday(RECENT_BILLS);
+            SalesRollupGateway.DayTotals todaysTotals = salesService.getSalesTotals(LocalDate.now());
+            InventoryService.InventoryStatistics stock = inventoryService.getInventoryStatistics();
 
             // Set attributes for JSP view
-            request.setAttribute("todaysBills", todaysBills);
-            request.setAttribute("todaysRevenue", todaysRevenue);
-            request.setAttribute("todaysTransactionCount", todaysBills.size());
-            request.setAttribute("lowStockItems", lowStockItems);
-            request.setAttribute("expiringItems", expiringItems);
+            request.setAttribute("todaysBills", recentBills);
+            request.setAttribute("todaysRevenue", todaysTotals.getTotalAmount().getValue());
+            request.setAttribute("todaysTransactionCount", todaysTotals.getBillCount());
+            request.setAttribute("lowStockCount", stock.lowStockCount);
+            request.setAttribute("expiringCount", stock.expiringCount);
 
             // Forward to dashboard view
             request.getRequestDispatcher("/WEB-INF/views/dashboard.jsp").forward(request, response);
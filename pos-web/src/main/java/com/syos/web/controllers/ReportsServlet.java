@@ -16,7 +16,8 @@ import java.time.LocalDate;
 
 /**
  * Reports Controller (MVC Pattern)
- * Generates various business reports.
+ * Generates various business reports. The report text is not built up front: the
+ * views stream it into the response section by section (chunked transfer).
  *
  * THREAD-SAFE: Read-only operations on thread-safe services.
  */
@@ -64,37 +65,48 @@ public class ReportsServlet extends HttpServlet {
             String dateParam = request.getParameter("date");
             LocalDate date = (dateParam != null) ? LocalDate.parse(dateParam) : LocalDate.now();
 
-            var report = reportService.generateDailySalesReport(date);
+            var report = reportService.buildDailySalesReport(date);
             request.setAttribute("report", report);
+            request.setAttribute("statistics", salesService.getSalesStatistics(date, date));
             request.setAttribute("reportDate", date);
             request.getRequestDispatcher("/WEB-INF/views/reports/daily-sales.jsp").forward(request, response);
 
         } catch (Exception e) {
             logger.error("Error generating daily sales report", e);
-            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            sendErrorIfUncommitted(response);
         }
     }
 
     private void showStockReport(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         try {
-            var report = reportService.generateStockReport();
+            var report = reportService.buildStockReport();
             request.setAttribute("report", report);
             request.getRequestDispatcher("/WEB-INF/views/reports/stock.jsp").forward(request, response);
         } catch (Exception e) {
             logger.error("Error generating stock report", e);
-            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            sendErrorIfUncommitted(response);
         }
     }
 
     private void showReorderReport(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         try {
-            var report = reportService.generateReorderReport();
+            var report = reportService.buildReorderReport();
             request.setAttribute("report", report);
             request.getRequestDispatcher("/WEB-INF/views/reports/reorder.jsp").forward(request, response);
         } catch (Exception e) {
             logger.error("Error generating reorder report", e);
+            sendErrorIfUncommitted(response);
+        }
+    }
+
+    /**
+     * Reports stream into the page, so a failure part way through finds the
+     * response already committed; the client then sees a truncated page
+     */
+    private void sendErrorIfUncommitted(HttpServletResponse response) throws IOException {
+        if (!response.isCommitted()) {
             response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
@@ -6,6 +6,7 @@ import com.syos.domain.entities.Bill;
 import com.syos.domain.entities.Item;
 import com.syos.domain.exceptions.InsufficientStockException;
 import com.syos.infrastructure.factories.ServiceFactory;
+import com.syos.infrastructure.persistence.gateways.BillGateway;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,6 +18,7 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.HashMap;
@@ -34,6 +36,7 @@ import java.util.Map;
 @WebServlet(name = "SalesServlet", urlPatterns = {"/sales/*"})
 public class SalesServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(SalesServlet.class);
+    private static final int BILLS_PAGE_SIZE = 50;
     private SalesService salesService;
     private Gson gson;
 
@@ -220,7 +223,7 @@ public class SalesServlet extends HttpServlet {
 
             // Complete sale and save (THREAD-SAFE operation with double-check locking)
             Bill bill = saleBuilder.completeSale(cashTendered);
-            int billNumber = salesService.saveBill(bill); // Synchronized method prevents race conditions
+            int billNumber = salesService.saveBill(bill); // Conditional stock updates prevent overselling
 
             // Clear sale from session
             session.removeAttribute("currentSale");
@@ -228,7 +231,7 @@ public class SalesServlet extends HttpServlet {
             logger.info("Sale completed: Bill #{} by user: {}",
                     billNumber, session.getAttribute("username"));
 
-            // Redirect to receipt page using database-generated bill number
+            // Redirect to receipt page using allocated bill number
             response.sendRedirect(request.getContextPath() + "/sales/receipt/" + billNumber);
 
         } catch (InsufficientStockException e) {
@@ -252,8 +255,23 @@ public class SalesServlet extends HttpServlet {
     private void showBillsList(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         try {
-            List<Bill> bills = salesService.getBillsForToday();
-            request.setAttribute("bills", bills);
+            if ("all".equals(request.getParameter("view"))) {
+                // Full history, one keyset page at a time
+                BillGateway.Cursor after = null;
+                String afterDate = request.getParameter("afterDate");
+                String afterNumber = request.getParameter("afterNumber");
+                if (afterDate != null && afterNumber != null) {
+                    after = new BillGateway.Cursor(LocalDateTime.parse(afterDate), Integer.parseInt(afterNumber));
+                }
+
+                BillGateway.Page page = salesService.getBillsPage(after, BILLS_PAGE_SIZE);
+                request.setAttribute("bills", page.getBills());
+                request.setAttribute("allBills", true);
+                request.setAttribute("nextPage", page.getNext());
+            } else {
+                List<Bill> bills = salesService.getBillsForToday();
+                request.setAttribute("bills", bills);
+            }
             request.getRequestDispatcher("/WEB-INF/views/sales/bills-list.jsp").forward(request, response);
 
         } catch (Exception e) {
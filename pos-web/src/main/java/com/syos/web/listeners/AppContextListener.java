@@ -1,6 +1,11 @@
 package com.syos.web.listeners;
 
+import com.syos.application.services.ExpirySweepScheduler;
+import com.syos.application.services.ReportCache;
+import com.syos.infrastructure.config.DatabaseConfig;
 import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.gateways.ItemCache;
+import com.syos.infrastructure.persistence.gateways.ItemCatalogReplica;
 import com.syos.infrastructure.factories.ServiceFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +27,7 @@ import javax.servlet.annotation.WebListener;
 @WebListener
 public class AppContextListener implements ServletContextListener {
     private static final Logger logger = LoggerFactory.getLogger(AppContextListener.class);
+    private ExpirySweepScheduler expirySweepScheduler;
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
@@ -38,6 +44,17 @@ public class AppContextListener implements ServletContextListener {
             ctx.setAttribute("serviceFactory", serviceFactory);
             logger.info("✓ ServiceFactory initialized with thread-safe services");
 
+            // Expire overdue stock now and daily at the configured time
+            DatabaseConfig config = DatabaseConfig.getInstance();
+            if (config.isExpirySweepEnabled()) {
+                expirySweepScheduler = new ExpirySweepScheduler(serviceFactory.getInventoryService(),
+                        config.getExpirySweepTime(),
+                        result -> logger.info("Expiry sweep: {} {}", result, result.getExpiredCodes()),
+                        e -> logger.error("Expiry sweep failed", e));
+                expirySweepScheduler.start();
+                logger.info("✓ Expiry sweep scheduled daily at {}", config.getExpirySweepTime());
+            }
+
             // Store application metadata
             ctx.setAttribute("appVersion", "1.0-SNAPSHOT");
             ctx.setAttribute("appStartTime", System.currentTimeMillis());
@@ -64,8 +81,27 @@ public class AppContextListener implements ServletContextListener {
         logger.info("=== SYOS POS Web Application Shutting Down ===");
 
         try {
+            if (expirySweepScheduler != null) {
+                expirySweepScheduler.shutdown();
+            }
+
+            ServiceFactory serviceFactory = ServiceFactory.getInstance();
+            logger.info("Inventory lock contention: {}",
+                    serviceFactory.getInventoryService().getLockContention());
+            logger.info("Item cache: {}", ItemCache.getInstance());
+            logger.info("Report cache: {}", ReportCache.getInstance());
+            ItemCatalogReplica.getInstance().shutdown();
+            logger.info("Item catalogue: {}", ItemCatalogReplica.getInstance());
+
+            // Flush bills waiting for group commit before the pool goes away
+            serviceFactory.getSalesService().shutdown();
+            if (serviceFactory.getSalesService().getGroupCommitBatchSizes() != null) {
+                logger.info("Group commit batch sizes: {}",
+                        serviceFactory.getSalesService().getGroupCommitBatchSizes());
+            }
+
             // Shutdown database connection pool
-            DatabaseConnectionPool.getInstance().shutdown();
+            DatabaseConnectionPool.shutdownAll();
             logger.info("✓ Database connection pool shut down");
 
             logger.info("=== Application Shutdown Complete ===");
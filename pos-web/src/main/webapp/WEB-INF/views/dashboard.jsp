@@ -111,12 +111,12 @@
         <c:if test="${sessionScope.userRole == 'MANAGER' || sessionScope.userRole == 'ADMIN'}">
             <div class="stat-card">
                 <h3>Low Stock Items</h3>
-                <p class="stat-value alert-warning">${lowStockItems.size()}</p>
+                <p class="stat-value alert-warning">${lowStockCount}</p>
             </div>
 
             <div class="stat-card">
                 <h3>Items Expiring Soon</h3>
-                <p class="stat-value alert-danger">${expiringItems.size()}</p>
+                <p class="stat-value alert-danger">${expiringCount}</p>
             </div>
         </c:if>
     </div>
@@ -169,19 +169,19 @@
     <c:if test="${sessionScope.userRole == 'MANAGER' || sessionScope.userRole == 'ADMIN'}">
         <div class="dashboard-section">
             <h2>Alerts & Notifications</h2>
-        <c:if test="${not empty lowStockItems}">
+        <c:if test="${lowStockCount > 0}">
             <div class="alert alert-warning">
-                <strong>Low Stock Alert:</strong> ${lowStockItems.size()} items need reordering.
+                <strong>Low Stock Alert:</strong> ${lowStockCount} items need reordering.
                 <a href="${pageContext.request.contextPath}/inventory/low-stock">View Items</a>
             </div>
         </c:if>
-        <c:if test="${not empty expiringItems}">
+        <c:if test="${expiringCount > 0}">
             <div class="alert alert-danger">
-                <strong>Expiry Warning:</strong> ${expiringItems.size()} items expiring within 7 days.
+                <strong>Expiry Warning:</strong> ${expiringCount} items expiring within 7 days.
                 <a href="${pageContext.request.contextPath}/inventory/expiring">View Items</a>
             </div>
         </c:if>
-        <c:if test="${empty lowStockItems && empty expiringItems}">
+        <c:if test="${lowStockCount == 0 && expiringCount == 0}">
             <div class="alert alert-success">
                 All systems operational. No alerts at this time.
             </div>
@@ -1,6 +1,7 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
 <%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
 <%@ taglib uri="http://java.sun.com/jsp/jstl/fmt" prefix="fmt" %>
+<%@ taglib tagdir="/WEB-INF/tags" prefix="syos" %>
 <jsp:include page="../common/header.jsp">
     <jsp:param name="title" value="Daily Sales Report"/>
 </jsp:include>
@@ -29,8 +30,16 @@
         </div>
 
         <div class="report-content">
-            <pre>${report}</pre>
+            <pre><syos:report report="${report}"/></pre>
         </div>
+
+        <c:if test="${statistics.billCount > 0}">
+            <div class="report-statistics">
+                <div><span>Average Transaction</span><strong><c:out value="${statistics.averageTransaction}"/></strong></div>
+                <div><span>Total Discount Given</span><strong><c:out value="${statistics.totalDiscount}"/></strong></div>
+                <div><span>Most Popular Item</span><strong><c:out value="${statistics.mostPopularItem}"/></strong></div>
+            </div>
+        </c:if>
     </div>
 
     <div class="report-actions">
@@ -99,6 +108,20 @@
     font-size: 0.95rem;
 }
 
+.report-statistics {
+    display: flex;
+    gap: 2rem;
+    border-top: 1px solid #ddd;
+    margin-top: 1.5rem;
+    padding-top: 1rem;
+}
+
+.report-statistics span {
+    display: block;
+    color: #7f8c8d;
+    font-size: 0.9rem;
+}
+
 .report-actions {
     text-align: center;
 }
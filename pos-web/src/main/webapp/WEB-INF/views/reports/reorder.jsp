@@ -1,6 +1,7 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
 <%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
 <%@ taglib uri="http://java.sun.com/jsp/jstl/fmt" prefix="fmt" %>
+<%@ taglib tagdir="/WEB-INF/tags" prefix="syos" %>
 <jsp:include page="../common/header.jsp">
     <jsp:param name="title" value="Reorder Report"/>
 </jsp:include>
@@ -22,7 +23,7 @@
         </div>
 
         <div class="report-content">
-            <pre>${report}</pre>
+            <pre><syos:report report="${report}"/></pre>
         </div>
     </div>
 
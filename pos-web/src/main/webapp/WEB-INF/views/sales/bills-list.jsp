@@ -7,8 +7,18 @@
 
 <div class="page-container">
     <div class="page-header">
-        <h1>Today's Bills</h1>
-        <a href="${pageContext.request.contextPath}/sales/new" class="btn btn-primary">New Sale</a>
+        <h1>${allBills ? 'All Bills' : "Today's Bills"}</h1>
+        <div>
+            <c:choose>
+                <c:when test="${allBills}">
+                    <a href="${pageContext.request.contextPath}/sales/list" class="btn btn-secondary">Today's Bills</a>
+                </c:when>
+                <c:otherwise>
+                    <a href="${pageContext.request.contextPath}/sales/list?view=all" class="btn btn-secondary">All Bills</a>
+                </c:otherwise>
+            </c:choose>
+            <a href="${pageContext.request.contextPath}/sales/new" class="btn btn-primary">New Sale</a>
+        </div>
     </div>
 
     <div class="content-box">
@@ -43,11 +53,21 @@
                 </c:forEach>
                 <c:if test="${empty bills}">
                     <tr>
-                        <td colspan="8" class="text-center">No bills found for today</td>
+                        <td colspan="8" class="text-center">${allBills ? 'No bills found' : 'No bills found for today'}</td>
                     </tr>
                 </c:if>
             </tbody>
         </table>
+        <c:if test="${not empty nextPage}">
+            <div class="pagination">
+                <c:url var="nextPageUrl" value="/sales/list">
+                    <c:param name="view" value="all"/>
+                    <c:param name="afterDate" value="${nextPage.billDate}"/>
+                    <c:param name="afterNumber" value="${nextPage.billNumber}"/>
+                </c:url>
+                <a href="${nextPageUrl}" class="btn btn-secondary">Older Bills &raquo;</a>
+            </div>
+        </c:if>
     </div>
 </div>
 
@@ -79,6 +99,11 @@
 .badge-ONLINE {
     background-color: #9b59b6;
 }
+
+.pagination {
+    margin-top: 1rem;
+    text-align: right;
+}
 </style>
 
 <jsp:include page="../common/footer.jsp"/>
@@ -64,7 +64,7 @@
                             <tr>
                                 <td>${billItem.item.code.value}</td>
                                 <td>${billItem.item.name}</td>
-                                <td>$<fmt:formatNumber value="${billItem.item.price.value}" pattern="#,##0.00"/></td>
+                                <td>$<fmt:formatNumber value="${billItem.unitPrice.value}" pattern="#,##0.00"/></td>
                                 <td>${billItem.quantity.value}</td>
                                 <td>$<fmt:formatNumber value="${billItem.totalPrice.value}" pattern="#,##0.00"/></td>
                                 <td>
@@ -40,7 +40,7 @@
                         <div class="item-details">
                             <span class="item-code">${billItem.item.code.value}</span>
                             <span class="item-calc">
-                                ${billItem.quantity.value} x $<fmt:formatNumber value="${billItem.item.price.value}" pattern="#,##0.00"/>
+                                ${billItem.quantity.value} x $<fmt:formatNumber value="${billItem.unitPrice.value}" pattern="#,##0.00"/>
                             </span>
                             <span class="item-total">
                                 $<fmt:formatNumber value="${billItem.totalPrice.value}" pattern="#,##0.00"/>
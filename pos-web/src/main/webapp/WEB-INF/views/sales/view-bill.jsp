@@ -37,7 +37,7 @@
                     <tr>
                         <td>${billItem.item.code.value}</td>
                         <td>${billItem.item.name}</td>
-                        <td class="text-right">$<fmt:formatNumber value="${billItem.item.price.value}" pattern="#,##0.00"/></td>
+                        <td class="text-right">$<fmt:formatNumber value="${billItem.unitPrice.value}" pattern="#,##0.00"/></td>
                         <td class="text-center">${billItem.quantity.value}</td>
                         <td class="text-right">$<fmt:formatNumber value="${billItem.totalPrice.value}" pattern="#,##0.00"/></td>
                     </tr>
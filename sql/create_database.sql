@@ -1,14 +1,19 @@
 -- SYOS POS System - Complete Database Setup
 -- This file creates the database schema, tables, users, and sample data
 -- Run this file with: mysql -u root -p < sql/create_database.sql
+-- Databases created from an older version of this file: apply sql/migrations/*.sql in order instead
 
 -- Create database
 CREATE DATABASE IF NOT EXISTS syos_db;
 USE syos_db;
 
 -- Drop existing tables (in correct order due to foreign keys)
+DROP TABLE IF EXISTS daily_item_sales;
+DROP TABLE IF EXISTS rollup_versions;
+DROP TABLE IF EXISTS daily_sales;
 DROP TABLE IF EXISTS bill_items;
 DROP TABLE IF EXISTS bills;
+DROP TABLE IF EXISTS bill_sequence;
 DROP TABLE IF EXISTS stock_movements;
 DROP TABLE IF EXISTS audit_log;
 DROP TABLE IF EXISTS items;
@@ -44,7 +49,8 @@ CREATE TABLE items (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_state (state),
     INDEX idx_expiry (expiry_date),
-    INDEX idx_quantity (quantity)
+    INDEX idx_quantity (quantity),
+    INDEX idx_updated_at (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- Create Bills table
@@ -64,6 +70,14 @@ CREATE TABLE bills (
     INDEX idx_user_id (user_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- Create Bill sequence table (bill numbers are reserved from here in blocks)
+CREATE TABLE bill_sequence (
+    name VARCHAR(50) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT INTO bill_sequence (name, next_value) VALUES ('bills', 1);
+
 -- Create Bill Items table (for bill details)
 CREATE TABLE bill_items (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -79,6 +93,27 @@ CREATE TABLE bill_items (
     INDEX idx_item_code (item_code)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- Create Daily item sales rollup (maintained with every bill save; rebuilt from bills by SalesRollupGateway.rebuild)
+-- Day totals are read from bills through idx_bill_date; daily_sales is only dropped above for old databases
+CREATE TABLE daily_item_sales (
+    sale_date DATE NOT NULL,
+    item_code VARCHAR(20) NOT NULL,
+    quantity INT NOT NULL,
+    revenue DECIMAL(14, 2) NOT NULL,
+    bill_count INT NOT NULL,
+    first_bill_number BIGINT NOT NULL,
+    first_line_id BIGINT NOT NULL,
+    PRIMARY KEY (sale_date, item_code)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Bumped whenever finished days' rollup rows are rebuilt, so every application drops reports cached from them
+CREATE TABLE rollup_versions (
+    name VARCHAR(50) PRIMARY KEY,
+    version BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT INTO rollup_versions (name, version) VALUES ('sales', 1);
+
 -- Create Stock movements table (for tracking item movements)
 CREATE TABLE stock_movements (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
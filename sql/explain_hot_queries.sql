@@ -0,0 +1,173 @@
+-- SYOS POS System - Query plan check for the gateways' hot queries
+-- Loads volume data into a scratch database and EXPLAINs the SQL the gateways issue,
+-- so a query that stops using its index shows up as type=ALL or a filesort.
+-- Run against a scratch copy only, it adds 100,000 bills and 100,000 items:
+--   mysql -u root -p < sql/create_database.sql
+--   mysql -u root -p syos_db < sql/explain_hot_queries.sql
+-- The expected keys below are asserted automatically, on the SQL the gateways actually send,
+-- by GatewayQueryPlanIT: mvn -pl pos-core -Pdb-it test -Ddb.it.url=jdbc:mysql://localhost:3306/syos_it
+
+USE syos_db;
+
+-- ============================================================================
+-- VOLUME DATA (about a year of trading)
+-- ============================================================================
+
+SET SESSION cte_max_recursion_depth = 200000;
+
+INSERT INTO bills (bill_number, bill_date, total_amount, discount, cash_tendered, change_amount, transaction_type)
+WITH RECURSIVE seq (n) AS (
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM seq WHERE n < 100000
+)
+SELECT n,
+       DATE_SUB(NOW(), INTERVAL (n * 5) MINUTE),
+       7.50, 0.00, 10.00, 2.50,
+       IF(n % 10 = 0, 'ONLINE', 'IN_STORE')
+FROM seq;
+
+INSERT INTO bill_items (bill_number, item_code, quantity, unit_price, total_price)
+SELECT b.bill_number, 'MILK001', 1, 2.50, 2.50 FROM bills b
+UNION ALL
+SELECT b.bill_number, 'BREAD001', 2, 2.50, 5.00 FROM bills b;
+
+UPDATE bill_sequence SET next_value = (SELECT MAX(bill_number) + 1 FROM bills) WHERE name = 'bills';
+
+-- 100,000 SKUs with a spread of states, stock levels and expiry dates
+INSERT INTO items (code, name, price, quantity, state, purchase_date, expiry_date)
+WITH RECURSIVE seq (n) AS (
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM seq WHERE n < 100000
+)
+SELECT CONCAT('SKU', LPAD(n, 6, '0')), CONCAT('Volume item ', n), 1.00 + (n % 500) / 10,
+       n % 200,
+       ELT(1 + n % 4, 'IN_STORE', 'ON_SHELF', 'EXPIRED', 'SOLD_OUT'),
+       CURDATE() - INTERVAL 30 DAY,
+       CURDATE() + INTERVAL (n % 365) - 30 DAY
+FROM seq;
+
+INSERT INTO daily_item_sales (sale_date, item_code, quantity, revenue, bill_count, first_bill_number, first_line_id)
+SELECT DATE(b.bill_date), bi.item_code, SUM(bi.quantity), SUM(bi.quantity * bi.unit_price),
+       COUNT(DISTINCT bi.bill_number), MIN(bi.bill_number), MIN(bi.id)
+FROM bills b JOIN bill_items bi ON bi.bill_number = b.bill_number
+GROUP BY DATE(b.bill_date), bi.item_code;
+
+ANALYZE TABLE bills, bill_items, items, daily_item_sales;
+
+-- ============================================================================
+-- BILLS BY DAY (BillGateway.findByDate, getTotalSalesForDate, countBillsForDate)
+-- Expect: key = idx_bill_date, type = range
+-- ============================================================================
+
+EXPLAIN SELECT bill_number, bill_date, discount, cash_tendered, transaction_type
+FROM bills WHERE bill_date >= CURDATE() AND bill_date < CURDATE() + INTERVAL 1 DAY
+ORDER BY bill_number;
+
+EXPLAIN SELECT SUM(total_amount) as total
+FROM bills WHERE bill_date >= CURDATE() AND bill_date < CURDATE() + INTERVAL 1 DAY;
+
+EXPLAIN SELECT COUNT(*) as count
+FROM bills WHERE bill_date >= CURDATE() AND bill_date < CURDATE() + INTERVAL 1 DAY;
+
+-- ============================================================================
+-- BILLS BY DATE RANGE (BillGateway.findByDateRange)
+-- Expect: key = idx_bill_date, type = range
+-- ============================================================================
+
+EXPLAIN SELECT bill_number, bill_date, discount, cash_tendered, transaction_type
+FROM bills WHERE bill_date >= CURDATE() - INTERVAL 7 DAY AND bill_date < CURDATE() + INTERVAL 1 DAY
+ORDER BY bill_date DESC, bill_number;
+
+-- ============================================================================
+-- BILL PAGES (BillGateway.findPage)
+-- Expect: key = idx_bill_date, no "Using filesort" (backward index scan)
+-- ============================================================================
+
+EXPLAIN SELECT bill_number, bill_date, discount, cash_tendered, transaction_type
+FROM bills ORDER BY bill_date DESC, bill_number DESC LIMIT 50;
+
+EXPLAIN SELECT bill_number, bill_date, discount, cash_tendered, transaction_type
+FROM bills
+WHERE bill_date < NOW() - INTERVAL 30 DAY
+   OR (bill_date = NOW() - INTERVAL 30 DAY AND bill_number < 8640)
+ORDER BY bill_date DESC, bill_number DESC LIMIT 50;
+
+-- ============================================================================
+-- DAILY SALES BY ITEM (BillGateway.findItemSales)
+-- Expect: bills key = idx_bill_date (range), bill_items key = idx_bill_number (ref),
+-- items key = PRIMARY (eq_ref); one row returned per item sold
+-- ============================================================================
+
+EXPLAIN SELECT bi.item_code, i.name, SUM(bi.quantity) as quantity,
+       SUM(bi.quantity * bi.unit_price) as revenue
+FROM bills b
+JOIN bill_items bi ON bi.bill_number = b.bill_number
+LEFT JOIN items i ON i.code = bi.item_code
+WHERE b.bill_date >= CURDATE() AND b.bill_date < CURDATE() + INTERVAL 1 DAY
+GROUP BY bi.item_code, i.name
+ORDER BY MIN(bi.bill_number), MIN(bi.id);
+
+-- ============================================================================
+-- SALES ROLLUP (SalesRollupGateway.findItemSales, findTotals)
+-- Expect: PRIMARY range on sale_date; rows examined = days x items, not bills.
+-- Bill counts and totals come from bills: key = idx_bill_date, type = range
+-- ============================================================================
+
+EXPLAIN SELECT s.item_code, i.name, SUM(s.quantity) as quantity, SUM(s.revenue) as revenue
+FROM daily_item_sales s
+LEFT JOIN items i ON i.code = s.item_code
+WHERE s.sale_date BETWEEN CURDATE() - INTERVAL 30 DAY AND CURDATE()
+GROUP BY s.item_code, i.name
+ORDER BY MIN(s.first_bill_number), MIN(s.first_line_id);
+
+EXPLAIN SELECT COUNT(*) as count, SUM(total_amount) as total
+FROM bills WHERE bill_date >= CURDATE() AND bill_date < CURDATE() + INTERVAL 1 DAY;
+
+-- ============================================================================
+-- BILL LINES AND THEIR ITEMS (BillGateway.loadBills)
+-- Expect: bill_items key = idx_bill_number, items key = PRIMARY
+-- ============================================================================
+
+EXPLAIN SELECT bill_number, item_code, quantity, unit_price FROM bill_items
+WHERE bill_number IN (1, 2, 3, 4, 5) ORDER BY bill_number, id;
+
+EXPLAIN SELECT * FROM items WHERE code IN ('MILK001', 'BREAD001');
+
+-- ============================================================================
+-- ITEMS (ItemGateway.findByCode, decrementStock, findLowStock, findExpiringSoon)
+-- Expect: PRIMARY (const) for code lookups; idx_quantity / idx_expiry ranges once
+-- the catalogue is large enough that a full scan stops being cheaper
+-- ============================================================================
+
+EXPLAIN SELECT * FROM items WHERE code = 'MILK001';
+
+EXPLAIN UPDATE items
+SET state = CASE WHEN quantity = 1 THEN 'SOLD_OUT' ELSE state END, quantity = quantity - 1
+WHERE code = 'MILK001' AND state = 'ON_SHELF' AND quantity >= 1;
+
+EXPLAIN SELECT * FROM items WHERE quantity < 50 AND state != 'EXPIRED';
+
+EXPLAIN SELECT * FROM items WHERE expiry_date BETWEEN CURDATE() AND DATE_ADD(CURDATE(), INTERVAL 7 DAY);
+
+-- Inventory statistics (ItemGateway.findStockTotals): one pass over the table.
+-- EXPLAIN ANALYZE reports the actual time at 100,000 SKUs
+EXPLAIN ANALYZE SELECT COUNT(*) as total_items,
+       COALESCE(SUM(quantity), 0) as total_quantity,
+       COALESCE(SUM(state = 'EXPIRED'), 0) as expired_count,
+       COALESCE(SUM(quantity < 50 AND state != 'EXPIRED'), 0) as low_stock_count,
+       COALESCE(SUM(expiry_date BETWEEN CURDATE() AND DATE_ADD(CURDATE(), INTERVAL 7 DAY)), 0) as expiring_count,
+       SUM(CASE WHEN state != 'EXPIRED' THEN price * quantity END) as total_value
+FROM items;
+
+-- Expiry sweep (ItemGateway.expireOverdue)
+EXPLAIN UPDATE items SET state = 'EXPIRED'
+WHERE expiry_date < CURDATE() AND state IN ('IN_STORE', 'ON_SHELF');
+
+-- ============================================================================
+-- BILL NUMBER BLOCKS (BillNumberAllocator)
+-- Expect: key = PRIMARY, type = range on a single row
+-- ============================================================================
+
+EXPLAIN UPDATE bill_sequence SET next_value = LAST_INSERT_ID(next_value + 50) WHERE name = 'bills';
@@ -0,0 +1,14 @@
+-- SYOS POS System - Migration 001: bill number sequence
+-- For databases created before bill_sequence was added to create_database.sql.
+-- Bill numbers are reserved from this table in blocks by BillNumberAllocator.
+-- Safe to run more than once.
+-- Run with: mysql -u root -p syos_db < sql/migrations/001_add_bill_sequence.sql
+
+CREATE TABLE IF NOT EXISTS bill_sequence (
+    name VARCHAR(50) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Continue after the highest bill number already used
+INSERT IGNORE INTO bill_sequence (name, next_value)
+SELECT 'bills', COALESCE(MAX(bill_number), 0) + 1 FROM bills;
@@ -0,0 +1,33 @@
+-- SYOS POS System - Migration 002: daily item sales rollup
+-- For databases created before daily_item_sales was added to create_database.sql,
+-- or that ran with the per-day daily_sales table it replaces.
+-- Recomputes the rollup for every day that has bills, then drops daily_sales;
+-- day totals are now read from bills. Safe to run more than once.
+-- Stop the tills first: bills saved while it runs can be missed. For a long
+-- history, the CLI's rollup rebuild does the same in parallel day chunks.
+-- Run with: mysql -u root -p syos_db < sql/migrations/002_backfill_daily_item_sales.sql
+
+CREATE TABLE IF NOT EXISTS daily_item_sales (
+    sale_date DATE NOT NULL,
+    item_code VARCHAR(20) NOT NULL,
+    quantity INT NOT NULL,
+    revenue DECIMAL(14, 2) NOT NULL,
+    bill_count INT NOT NULL,
+    first_bill_number BIGINT NOT NULL,
+    first_line_id BIGINT NOT NULL,
+    PRIMARY KEY (sale_date, item_code)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+START TRANSACTION;
+
+DELETE FROM daily_item_sales;
+
+INSERT INTO daily_item_sales (sale_date, item_code, quantity, revenue, bill_count, first_bill_number, first_line_id)
+SELECT DATE(b.bill_date), bi.item_code, SUM(bi.quantity), SUM(bi.quantity * bi.unit_price),
+       COUNT(DISTINCT bi.bill_number), MIN(bi.bill_number), MIN(bi.id)
+FROM bills b JOIN bill_items bi ON bi.bill_number = b.bill_number
+GROUP BY DATE(b.bill_date), bi.item_code;
+
+COMMIT;
+
+DROP TABLE IF EXISTS daily_sales;
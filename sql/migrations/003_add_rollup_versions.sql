@@ -0,0 +1,13 @@
+-- SYOS POS System - Migration 003: rollup versions
+-- For databases created before rollup_versions was added to create_database.sql.
+-- SalesRollupGateway bumps the 'sales' row whenever it rebuilds rollup rows, and
+-- cached reports of finished days are only served while it is unchanged.
+-- Safe to run more than once.
+-- Run with: mysql -u root -p syos_db < sql/migrations/003_add_rollup_versions.sql
+
+CREATE TABLE IF NOT EXISTS rollup_versions (
+    name VARCHAR(50) PRIMARY KEY,
+    version BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT IGNORE INTO rollup_versions (name, version) VALUES ('sales', 1);
@@ -0,0 +1,18 @@
+-- SYOS POS System - Migration 004: index on items.updated_at
+-- For databases created before idx_updated_at was added to create_database.sql.
+-- ItemCatalogReplica polls items WHERE updated_at >= ? every few hundred
+-- milliseconds; without the index every poll scans the whole table.
+-- Safe to run more than once.
+-- Run with: mysql -u root -p syos_db < sql/migrations/004_add_items_updated_at_index.sql
+
+-- MySQL has no ADD INDEX IF NOT EXISTS, so look the index up first
+SET @index_exists = (SELECT COUNT(*) FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'items' AND index_name = 'idx_updated_at');
+
+SET @ddl = IF(@index_exists = 0,
+    'ALTER TABLE items ADD INDEX idx_updated_at (updated_at)',
+    'DO 0');
+
+PREPARE add_index FROM @ddl;
+EXECUTE add_index;
+DEALLOCATE PREPARE add_index;
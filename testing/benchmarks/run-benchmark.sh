@@ -0,0 +1,52 @@
+#!/bin/bash
+
+#####################################################################
+# SYOS POS System - Database Benchmarks
+#
+# Compiles the benchmarks in testing/benchmarks/src against pos-core
+# and runs one of them against the syos_bench schema.
+#
+# Usage: ./run-benchmark.sh [--setup] <Benchmark> [args...]
+#   --setup     (Re)create syos_bench from sql/create_database.sql first
+#
+# POS_CORE_CLASSES selects the pos-core build to measure (default:
+# pos-core/target/classes), so the same benchmark can be run against
+# an older checkout for before/after numbers. BENCH_CONFIG_DIR swaps in
+# another directory holding config/application.properties.
+#####################################################################
+
+set -e
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+PROJECT_ROOT="$(cd "$BENCH_DIR/../.." && pwd)"
+POS_CORE_CLASSES="${POS_CORE_CLASSES:-$PROJECT_ROOT/pos-core/target/classes}"
+CONNECTOR_JAR="${CONNECTOR_JAR:-$HOME/.m2/repository/com/mysql/mysql-connector-j/8.0.33/mysql-connector-j-8.0.33.jar}"
+MYSQL="${MYSQL:-mysql -uroot -pSportS28}"
+CONFIG_DIR="${BENCH_CONFIG_DIR:-$BENCH_DIR}"
+OUT_DIR="$BENCH_DIR/target"
+
+if [[ "$1" == "--setup" ]]; then
+    echo "Creating syos_bench schema..."
+    sed 's/syos_db/syos_bench/g' "$PROJECT_ROOT/sql/create_database.sql" | $MYSQL
+    shift
+fi
+
+if [[ $# -lt 1 ]]; then
+    echo "Usage: $0 [--setup] <Benchmark> [args...]"
+    echo "Benchmarks: $(cd "$BENCH_DIR/src/com/syos/benchmarks" && ls *Benchmark.java | sed 's/\.java//' | tr '\n' ' ')"
+    exit 1
+fi
+
+if [[ ! -d "$POS_CORE_CLASSES" ]]; then
+    echo "pos-core classes not found at $POS_CORE_CLASSES (run: mvn -pl pos-core compile)"
+    exit 1
+fi
+
+CP="$POS_CORE_CLASSES:$CONNECTOR_JAR"
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+# Only the chosen benchmark and what it uses, so older pos-core builds still compile
+javac -d "$OUT_DIR" -cp "$CP" -sourcepath "$BENCH_DIR/src" "$BENCH_DIR/src/com/syos/benchmarks/$1.java"
+
+# The benchmark config comes first on the classpath, ahead of pos-core's own
+java -cp "$CONFIG_DIR:$OUT_DIR:$CP" "com.syos.benchmarks.$1" "${@:2}"
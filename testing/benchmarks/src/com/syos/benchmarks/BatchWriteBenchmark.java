@@ -0,0 +1,95 @@
+package com.syos.benchmarks;
+
+import com.syos.domain.entities.InStoreState;
+import com.syos.domain.entities.Item;
+import com.syos.infrastructure.persistence.connection.ConnectionManager;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.gateways.ItemGateway;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writing many items one statement at a time versus through the gateway's
+ * batched insertAll/updateAll.
+ *
+ * Usage: BatchWriteBenchmark [rows=10000]
+ */
+public class BatchWriteBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = BenchmarkSupport.intArg(args, 0, 10_000);
+        ItemGateway gateway = new ItemGateway(DatabaseConnectionPool.getInstance());
+        ConnectionManager connectionManager = new ConnectionManager();
+
+        // Warm up connections, statement caches and the JIT on a tenth of the rows
+        run(gateway, connectionManager, Math.max(1, rows / 10), false);
+
+        BenchmarkSupport.header(String.format("Writing %d items", rows));
+        System.out.printf("%-36s %12s %12s%n", "Method", "Elapsed ms", "Rows/s");
+        run(gateway, connectionManager, rows, true);
+        System.exit(0);
+    }
+
+    private static void run(ItemGateway gateway, ConnectionManager connectionManager, int rows, boolean report)
+            throws Exception {
+        BenchmarkSupport.clearSalesAndItems();
+        List<Item> items = items(rows, "1.00");
+        long start = System.nanoTime();
+        for (Item item : items) {
+            gateway.insert(item);
+        }
+        print(report, "insert() per row, autocommit", rows, start);
+
+        BenchmarkSupport.clearSalesAndItems();
+        start = System.nanoTime();
+        gateway.insertAll(items);
+        print(report, "insertAll()", rows, start);
+
+        List<Item> repriced = items(rows, "2.00");
+        start = System.nanoTime();
+        for (Item item : repriced) {
+            gateway.update(item);
+        }
+        print(report, "update() per row, autocommit", rows, start);
+
+        List<Item> repricedAgain = items(rows, "3.00");
+        start = System.nanoTime();
+        connectionManager.executeInTransaction(() -> {
+            for (Item item : repricedAgain) {
+                gateway.update(item);
+            }
+        });
+        print(report, "update() per row, one transaction", rows, start);
+
+        List<Item> batched = items(rows, "4.00");
+        start = System.nanoTime();
+        gateway.updateAll(batched);
+        print(report, "updateAll()", rows, start);
+    }
+
+    private static List<Item> items(int rows, String price) {
+        List<Item> items = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            items.add(new Item.Builder()
+                    .withCode("BATCH" + i)
+                    .withName("Batch item " + i)
+                    .withPrice(new BigDecimal(price))
+                    .withQuantity(100)
+                    .withExpiryDate(LocalDate.now().plusDays(365))
+                    .withState(new InStoreState())
+                    .withPurchaseDate(LocalDate.now())
+                    .build());
+        }
+        return items;
+    }
+
+    private static void print(boolean report, String method, int rows, long startNanos) {
+        if (!report) {
+            return;
+        }
+        double elapsed = BenchmarkSupport.millisSince(startNanos);
+        System.out.printf("%-36s %12.0f %12.0f%n", method, elapsed, rows * 1000.0 / elapsed);
+    }
+}
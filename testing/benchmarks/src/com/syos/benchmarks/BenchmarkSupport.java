@@ -0,0 +1,104 @@
+package com.syos.benchmarks;
+
+import com.syos.infrastructure.config.DatabaseConfig;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Fixtures and reporting shared by the benchmarks.
+ * Fixtures are written over a plain JDBC connection so they do not depend on the
+ * pos-core version being measured.
+ */
+final class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    static Connection connect() throws SQLException {
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        return DriverManager.getConnection(config.getConnectionUrl() + "?rewriteBatchedStatements=true",
+                config.getUsername(), config.getPassword());
+    }
+
+    /**
+     * Delete every bill and every item, leaving users in place.
+     * daily_sales is only present in schemas older builds ran against.
+     */
+    static void clearSalesAndItems() throws SQLException {
+        try (Connection connection = connect(); Statement stmt = connection.createStatement()) {
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+            for (String table : new String[] {"bill_items", "bills", "daily_item_sales", "daily_sales",
+                    "stock_movements", "items"}) {
+                if (tableExists(connection, table)) {
+                    stmt.execute("TRUNCATE TABLE " + table);
+                }
+            }
+            stmt.execute("UPDATE bill_sequence SET next_value = 1");
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+        }
+    }
+
+    /**
+     * Insert count items named prefix0..prefix(count-1)
+     */
+    static void insertItems(String prefix, int count, int quantity, String state) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement stmt = connection.prepareStatement(
+                     "INSERT INTO items (code, name, price, quantity, state, purchase_date, expiry_date) " +
+                     "VALUES (?, ?, ?, ?, ?, CURDATE(), DATE_ADD(CURDATE(), INTERVAL 365 DAY))")) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < count; i++) {
+                stmt.setString(1, prefix + i);
+                stmt.setString(2, "Benchmark item " + prefix + i);
+                stmt.setBigDecimal(3, new BigDecimal("1.25").add(BigDecimal.valueOf(i % 100)));
+                stmt.setInt(4, quantity);
+                stmt.setString(5, state);
+                stmt.addBatch();
+                if (i % 1000 == 999) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+            connection.commit();
+        }
+    }
+
+    static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(connection.getCatalog(), null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * @return A server-wide status counter such as Bytes_sent
+     */
+    static long globalStatus(Connection connection, String name) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SHOW GLOBAL STATUS LIKE ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Unknown status variable " + name);
+                }
+                return Long.parseLong(rs.getString(2));
+            }
+        }
+    }
+
+    static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+
+    static void header(String title) {
+        System.out.println();
+        System.out.println(title);
+        System.out.println("-".repeat(title.length()));
+    }
+}
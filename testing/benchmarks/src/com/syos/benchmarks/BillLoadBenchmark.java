@@ -0,0 +1,101 @@
+package com.syos.benchmarks;
+
+import com.syos.domain.entities.Bill;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.gateways.BillGateway;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Loading a day of bills through BillGateway.findByDate: bytes the server sent,
+ * wall time, and client CPU time spent decoding rows and mapping them to bills.
+ * Bytes are read from the server's global Bytes_sent, so run it on an otherwise
+ * idle server.
+ *
+ * Usage: BillLoadBenchmark [bills=5000] [linesPerBill=4] [repeats=5]
+ */
+public class BillLoadBenchmark {
+    private static final int ITEMS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int bills = BenchmarkSupport.intArg(args, 0, 5000);
+        int linesPerBill = BenchmarkSupport.intArg(args, 1, 4);
+        int repeats = BenchmarkSupport.intArg(args, 2, 5);
+
+        BenchmarkSupport.clearSalesAndItems();
+        BenchmarkSupport.insertItems("LOADI", ITEMS, 1_000_000, "ON_SHELF");
+        insertBills(LocalDate.now(), bills, linesPerBill);
+
+        BillGateway gateway = new BillGateway(DatabaseConnectionPool.getInstance());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        gateway.findByDate(LocalDate.now()); // Warm up
+
+        BenchmarkSupport.header(String.format("findByDate over %d bills x %d lines", bills, linesPerBill));
+        System.out.printf("%6s %8s %14s %10s %14s%n", "Run", "Bills", "Bytes sent", "Wall ms", "Client CPU ms");
+        try (Connection status = BenchmarkSupport.connect()) {
+            for (int run = 1; run <= repeats; run++) {
+                long bytesBefore = bytesSent(status);
+                long cpuBefore = threads.getCurrentThreadCpuTime();
+                long start = System.nanoTime();
+                List<Bill> loaded = gateway.findByDate(LocalDate.now());
+                double wall = BenchmarkSupport.millisSince(start);
+                double cpu = (threads.getCurrentThreadCpuTime() - cpuBefore) / 1_000_000.0;
+                long bytes = bytesSent(status) - bytesBefore;
+                System.out.printf("%6d %8d %14d %10.0f %14.0f%n", run, loaded.size(), bytes, wall, cpu);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static long bytesSent(Connection connection) throws Exception {
+        return BenchmarkSupport.globalStatus(connection, "Bytes_sent");
+    }
+
+    private static void insertBills(LocalDate day, int bills, int linesPerBill) throws Exception {
+        try (Connection connection = BenchmarkSupport.connect();
+             PreparedStatement bill = connection.prepareStatement(
+                     "INSERT INTO bills (bill_number, bill_date, total_amount, discount, cash_tendered, " +
+                     "change_amount, transaction_type) VALUES (?, ?, ?, 0, ?, 0, 'IN_STORE')");
+             PreparedStatement line = connection.prepareStatement(
+                     "INSERT INTO bill_items (bill_number, item_code, quantity, unit_price, total_price) " +
+                     "VALUES (?, ?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            LocalDateTime opening = day.atTime(8, 0);
+            for (int number = 1; number <= bills; number++) {
+                BigDecimal total = BigDecimal.ZERO;
+                for (int i = 0; i < linesPerBill; i++) {
+                    int item = (number * 7 + i) % ITEMS;
+                    BigDecimal price = new BigDecimal("1.25").add(BigDecimal.valueOf(item));
+                    int quantity = 1 + (number + i) % 3;
+                    BigDecimal lineTotal = price.multiply(BigDecimal.valueOf(quantity));
+                    total = total.add(lineTotal);
+                    line.setInt(1, number);
+                    line.setString(2, "LOADI" + item);
+                    line.setInt(3, quantity);
+                    line.setBigDecimal(4, price);
+                    line.setBigDecimal(5, lineTotal);
+                    line.addBatch();
+                }
+                bill.setInt(1, number);
+                bill.setTimestamp(2, Timestamp.valueOf(opening.plusSeconds(number % 36_000)));
+                bill.setBigDecimal(3, total);
+                bill.setBigDecimal(4, total);
+                bill.addBatch();
+                if (number % 1000 == 0) {
+                    bill.executeBatch();
+                    line.executeBatch();
+                }
+            }
+            bill.executeBatch();
+            line.executeBatch();
+            connection.commit();
+        }
+    }
+}
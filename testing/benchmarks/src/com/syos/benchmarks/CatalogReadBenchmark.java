@@ -0,0 +1,131 @@
+package com.syos.benchmarks;
+
+import com.syos.domain.entities.Item;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.gateways.ItemCatalogReplica;
+import com.syos.infrastructure.persistence.gateways.ItemGateway;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Catalogue listing latency while items are being written in the same JVM, and
+ * how long a write takes to show up in the listings.
+ *
+ * Usage: CatalogReadBenchmark [items=20000] [seconds=10] [readers=4] [writesPerSecond=100]
+ */
+public class CatalogReadBenchmark {
+    private static final String PREFIX = "CAT";
+    private static final int VISIBILITY_PROBES = 20;
+
+    public static void main(String[] args) throws Exception {
+        int items = BenchmarkSupport.intArg(args, 0, 20_000);
+        int seconds = BenchmarkSupport.intArg(args, 1, 10);
+        int readers = BenchmarkSupport.intArg(args, 2, 4);
+        int writesPerSecond = BenchmarkSupport.intArg(args, 3, 100);
+
+        BenchmarkSupport.clearSalesAndItems();
+        BenchmarkSupport.insertItems(PREFIX, items, 100, "ON_SHELF");
+
+        ItemGateway itemGateway = new ItemGateway(DatabaseConnectionPool.getInstance());
+        ItemCatalogReplica catalog = ItemCatalogReplica.getInstance();
+        long loadStart = System.nanoTime();
+        while (catalog.getByState("ON_SHELF").size() < items) {
+            Thread.sleep(10);
+        }
+        System.out.printf("Catalogue of %d items loaded in %.0f ms%n", items, BenchmarkSupport.millisSince(loadStart));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            long intervalNanos = 1_000_000_000L / writesPerSecond;
+            long next = System.nanoTime();
+            while (running.get()) {
+                itemGateway.addQuantity(PREFIX + ThreadLocalRandom.current().nextInt(items), 1);
+                next += intervalNanos;
+                long sleep = next - System.nanoTime();
+                if (sleep > 0) {
+                    try {
+                        Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "writer");
+        writer.setDaemon(true);
+
+        CountDownLatch done = new CountDownLatch(readers);
+        List<long[]> latencies = new ArrayList<>();
+        int[] counts = new int[readers];
+        for (int r = 0; r < readers; r++) {
+            long[] samples = new long[1 << 20];
+            latencies.add(samples);
+            int reader = r;
+            Thread thread = new Thread(() -> {
+                int n = 0;
+                while (running.get() && n < samples.length) {
+                    long start = System.nanoTime();
+                    catalog.getByState("ON_SHELF");
+                    samples[n++] = System.nanoTime() - start;
+                }
+                counts[reader] = n;
+                done.countDown();
+            }, "reader");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        writer.start();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        done.await();
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int r = 0; r < readers; r++) {
+            System.arraycopy(latencies.get(r), 0, all, offset, counts[r]);
+            offset += counts[r];
+        }
+        Arrays.sort(all);
+
+        BenchmarkSupport.header(String.format("getByState with %d readers, %d writes/s, %d items",
+                readers, writesPerSecond, items));
+        System.out.printf("%10s %10s %10s %10s %10s%n", "Reads/s", "p50 ms", "p99 ms", "max ms", "");
+        System.out.printf("%10.0f %10.2f %10.2f %10.2f%n", total / (double) seconds,
+                percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6);
+
+        double[] visible = new double[VISIBILITY_PROBES];
+        for (int probe = 0; probe < VISIBILITY_PROBES; probe++) {
+            String code = PREFIX + probe;
+            int expected = itemGateway.findByCode(code).getQuantity().getValue() + 1;
+            long start = System.nanoTime();
+            itemGateway.addQuantity(code, 1);
+            while (quantityListed(catalog, code) != expected) {
+                Thread.onSpinWait();
+            }
+            visible[probe] = BenchmarkSupport.millisSince(start);
+        }
+        Arrays.sort(visible);
+        BenchmarkSupport.header("Own write visible in getAll");
+        System.out.printf("median %.1f ms, max %.1f ms over %d writes%n",
+                visible[VISIBILITY_PROBES / 2], visible[VISIBILITY_PROBES - 1], VISIBILITY_PROBES);
+        System.out.println(catalog);
+        System.exit(0);
+    }
+
+    private static int quantityListed(ItemCatalogReplica catalog, String code) {
+        for (Item item : catalog.getAll()) {
+            if (item.getCode().getValue().equals(code)) {
+                return item.getQuantity().getValue();
+            }
+        }
+        return -1;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e6;
+    }
+}
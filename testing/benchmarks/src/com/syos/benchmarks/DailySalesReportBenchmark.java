@@ -0,0 +1,141 @@
+package com.syos.benchmarks;
+
+import com.syos.application.services.ReportService;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.gateways.BillGateway;
+import com.syos.infrastructure.persistence.gateways.ItemGateway;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Time to build the daily sales report for one busy day, and the bytes the
+ * server sent for it. The day's rollup rows are filled in too, so builds that
+ * read the report from the rollup are measured on the same data.
+ *
+ * Usage: DailySalesReportBenchmark [bills=50000] [linesPerBill=3] [items=500] [runs=5]
+ */
+public class DailySalesReportBenchmark {
+    private static final String PREFIX = "DAY";
+
+    public static void main(String[] args) throws Exception {
+        int bills = BenchmarkSupport.intArg(args, 0, 50_000);
+        int linesPerBill = BenchmarkSupport.intArg(args, 1, 3);
+        int items = BenchmarkSupport.intArg(args, 2, 500);
+        int runs = BenchmarkSupport.intArg(args, 3, 5);
+        LocalDate day = LocalDate.now().minusDays(1);
+
+        BenchmarkSupport.clearSalesAndItems();
+        BenchmarkSupport.insertItems(PREFIX, items, 1_000_000, "ON_SHELF");
+        insertDay(day, bills, linesPerBill, items);
+
+        DatabaseConnectionPool pool = DatabaseConnectionPool.getInstance();
+        BillGateway billGateway = new BillGateway(pool);
+        ReportService reportService = new ReportService(billGateway, new ItemGateway(pool));
+
+        BenchmarkSupport.header(String.format("Daily sales report for %d bills, %d lines each, %d items",
+                bills, linesPerBill, items));
+        measure("generateDailySalesReport", runs, () -> reportService.generateDailySalesReport(day));
+
+        // Looked up by name so the benchmark still compiles against builds without it
+        Method findItemSales = findMethod(BillGateway.class, "findItemSales", LocalDate.class, LocalDate.class);
+        if (findItemSales != null) {
+            measure("BillGateway.findItemSales", runs, () -> findItemSales.invoke(billGateway, day, day));
+        }
+        System.exit(0);
+    }
+
+    private static void measure(String name, int runs, Work work) throws Exception {
+        work.run(); // Warm up the JIT and statement caches
+        double[] millis = new double[runs];
+        long bytes = 0;
+        try (Connection status = BenchmarkSupport.connect()) {
+            for (int run = 0; run < runs; run++) {
+                long sentBefore = BenchmarkSupport.globalStatus(status, "Bytes_sent");
+                long start = System.nanoTime();
+                work.run();
+                millis[run] = BenchmarkSupport.millisSince(start);
+                bytes = BenchmarkSupport.globalStatus(status, "Bytes_sent") - sentBefore;
+            }
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-26s median %8.1f ms, min %8.1f ms, %,12d bytes sent%n",
+                name, millis[runs / 2], millis[0], bytes);
+    }
+
+    /**
+     * Spread the bills over the day, give each linesPerBill lines, and fill in the day's rollups
+     */
+    private static void insertDay(LocalDate day, int bills, int linesPerBill, int items) throws Exception {
+        try (Connection connection = BenchmarkSupport.connect()) {
+            connection.setAutoCommit(false);
+            String billSql = "INSERT INTO bills (bill_number, bill_date, total_amount, discount, cash_tendered, " +
+                    "change_amount, transaction_type) VALUES (?, ?, ?, 0.00, ?, ?, 'IN_STORE')";
+            // Line k sells 1 + k at 1.25; the bill total is the sum of its lines
+            BigDecimal total = new BigDecimal("1.25").multiply(BigDecimal.valueOf(linesPerBill * (linesPerBill + 1) / 2));
+            BigDecimal tendered = total.add(BigDecimal.TEN);
+            try (PreparedStatement stmt = connection.prepareStatement(billSql)) {
+                long step = 86_400_000L / bills;
+                long startOfDay = Timestamp.valueOf(day.atStartOfDay()).getTime();
+                for (int n = 1; n <= bills; n++) {
+                    stmt.setInt(1, n);
+                    stmt.setTimestamp(2, new Timestamp(startOfDay + n * step - step / 2));
+                    stmt.setBigDecimal(3, total);
+                    stmt.setBigDecimal(4, tendered);
+                    stmt.setBigDecimal(5, BigDecimal.TEN);
+                    stmt.addBatch();
+                    if (n % 1000 == 0) {
+                        stmt.executeBatch();
+                    }
+                }
+                stmt.executeBatch();
+            }
+
+            try (Statement stmt = connection.createStatement()) {
+                StringBuilder lines = new StringBuilder("SELECT 0 AS k");
+                for (int k = 1; k < linesPerBill; k++) {
+                    lines.append(" UNION ALL SELECT ").append(k);
+                }
+                stmt.executeUpdate("INSERT INTO bill_items (bill_number, item_code, quantity, unit_price, total_price) " +
+                        "SELECT b.bill_number, CONCAT('" + PREFIX + "', (b.bill_number * 7 + l.k) % " + items + "), " +
+                        "1 + l.k, 1.25, 1.25 * (1 + l.k) FROM bills b, (" + lines + ") l " +
+                        "ORDER BY b.bill_number, l.k");
+                stmt.executeUpdate("UPDATE bill_sequence SET next_value = " + (bills + 1));
+                stmt.executeUpdate("INSERT INTO daily_item_sales (sale_date, item_code, quantity, revenue, " +
+                        "bill_count, first_bill_number, first_line_id) " +
+                        "SELECT DATE(b.bill_date), bi.item_code, SUM(bi.quantity), SUM(bi.quantity * bi.unit_price), " +
+                        "COUNT(DISTINCT bi.bill_number), MIN(bi.bill_number), MIN(bi.id) " +
+                        "FROM bills b JOIN bill_items bi ON bi.bill_number = b.bill_number " +
+                        "GROUP BY DATE(b.bill_date), bi.item_code");
+                if (BenchmarkSupport.tableExists(connection, "daily_sales")) {
+                    // Read by the builds that kept a per-day totals row
+                    stmt.executeUpdate("INSERT INTO daily_sales (sale_date, bill_count, total_amount) " +
+                            "SELECT DATE(bill_date), COUNT(*), SUM(total_amount) FROM bills GROUP BY DATE(bill_date)");
+                }
+            }
+            connection.commit();
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("ANALYZE TABLE bills, bill_items, items, daily_item_sales");
+            }
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        void run() throws Exception;
+    }
+}
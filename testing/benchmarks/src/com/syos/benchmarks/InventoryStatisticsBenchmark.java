@@ -0,0 +1,159 @@
+package com.syos.benchmarks;
+
+import com.syos.application.services.InventoryService;
+import com.syos.domain.entities.Item;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.gateways.ItemGateway;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inventory dashboard figures over a large catalogue: time and bytes the server
+ * sent for InventoryService.getInventoryStatistics, and for the statistics
+ * together with the low stock and expiring lists, fetched in parallel
+ * (getInventoryOverview) and one after another. The statistics are checked
+ * against the lists and against counts taken straight from MySQL.
+ *
+ * Usage: InventoryStatisticsBenchmark [items=100000] [runs=7]
+ */
+public class InventoryStatisticsBenchmark {
+    private static final String PREFIX = "INV";
+    private static final String[] STATES = {"ON_SHELF", "IN_STORE", "EXPIRED", "SOLD_OUT"};
+
+    public static void main(String[] args) throws Exception {
+        int items = BenchmarkSupport.intArg(args, 0, 100_000);
+        int runs = BenchmarkSupport.intArg(args, 1, 7);
+
+        BenchmarkSupport.clearSalesAndItems();
+        insertCatalogue(items);
+
+        InventoryService inventoryService = new InventoryService(new ItemGateway(DatabaseConnectionPool.getInstance()));
+        check(inventoryService, items);
+
+        BenchmarkSupport.header(String.format("Inventory statistics over %d items", items));
+        measure("getInventoryStatistics", runs, inventoryService::getInventoryStatistics);
+        measure("statistics + lists, serial", runs, () -> {
+            inventoryService.getInventoryStatistics();
+            inventoryService.getLowStockItems();
+            inventoryService.getExpiringItems();
+        });
+
+        // Looked up by name so the benchmark still compiles against builds without it
+        Method overview = findMethod(InventoryService.class, "getInventoryOverview");
+        if (overview != null) {
+            measure("getInventoryOverview", runs, () -> overview.invoke(inventoryService));
+        }
+        System.exit(0);
+    }
+
+    /**
+     * The statistics must agree with the lists they summarise and with MySQL's own counts
+     */
+    private static void check(InventoryService inventoryService, int items) throws Exception {
+        InventoryService.InventoryStatistics statistics = inventoryService.getInventoryStatistics();
+        List<Item> lowStock = inventoryService.getLowStockItems();
+        List<Item> expiring = inventoryService.getExpiringItems();
+
+        long expectedQuantity;
+        int expectedExpired;
+        BigDecimal expectedValue;
+        try (Connection connection = BenchmarkSupport.connect();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT SUM(quantity), SUM(state = 'EXPIRED'), " +
+                     "SUM(IF(state = 'EXPIRED', 0, price * quantity)) FROM items")) {
+            rs.next();
+            expectedQuantity = rs.getLong(1);
+            expectedExpired = rs.getInt(2);
+            expectedValue = rs.getBigDecimal(3);
+        }
+
+        expect("total items", items, statistics.totalItems);
+        expect("total quantity", expectedQuantity, statistics.totalQuantity);
+        expect("expired", expectedExpired, statistics.expiredCount);
+        expect("low stock", lowStock.size(), statistics.lowStockCount);
+        expect("expiring", expiring.size(), statistics.expiringCount);
+        if (expectedValue.compareTo(statistics.totalValue) != 0) {
+            throw new IllegalStateException("Total value " + statistics.totalValue + ", expected " + expectedValue);
+        }
+        System.out.printf("Statistics agree with the lists and MySQL: %d low stock, %d expiring, %d expired%n",
+                statistics.lowStockCount, statistics.expiringCount, statistics.expiredCount);
+    }
+
+    private static void expect(String figure, long expected, long actual) {
+        if (expected != actual) {
+            throw new IllegalStateException(figure + " was " + actual + ", expected " + expected);
+        }
+    }
+
+    private static void measure(String name, int runs, Work work) throws Exception {
+        work.run(); // Warm up the JIT and statement caches
+        double[] millis = new double[runs];
+        long bytes = 0;
+        try (Connection status = BenchmarkSupport.connect()) {
+            for (int run = 0; run < runs; run++) {
+                long sentBefore = BenchmarkSupport.globalStatus(status, "Bytes_sent");
+                long start = System.nanoTime();
+                work.run();
+                millis[run] = BenchmarkSupport.millisSince(start);
+                bytes = BenchmarkSupport.globalStatus(status, "Bytes_sent") - sentBefore;
+            }
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-28s median %8.1f ms, min %8.1f ms, %,12d bytes sent%n",
+                name, millis[runs / 2], millis[0], bytes);
+    }
+
+    /**
+     * Items with quantities 0-199, the four states in turn, and expiry dates from
+     * a month ago to most of a year ahead, so every figure counts a real share of them
+     */
+    private static void insertCatalogue(int items) throws Exception {
+        LocalDate today = LocalDate.now();
+        try (Connection connection = BenchmarkSupport.connect();
+             PreparedStatement stmt = connection.prepareStatement(
+                     "INSERT INTO items (code, name, price, quantity, state, purchase_date, expiry_date) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < items; i++) {
+                stmt.setString(1, PREFIX + i);
+                stmt.setString(2, "Benchmark item " + PREFIX + i);
+                stmt.setBigDecimal(3, new BigDecimal("1.25").add(BigDecimal.valueOf(i % 100)));
+                stmt.setInt(4, i % 200);
+                stmt.setString(5, STATES[i % STATES.length]);
+                stmt.setDate(6, Date.valueOf(today.minusDays(60)));
+                stmt.setDate(7, Date.valueOf(today.plusDays(i % 365 - 30)));
+                stmt.addBatch();
+                if (i % 1000 == 999) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+            connection.commit();
+
+            try (Statement analyze = connection.createStatement()) {
+                analyze.execute("ANALYZE TABLE items");
+            }
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        void run() throws Exception;
+    }
+}
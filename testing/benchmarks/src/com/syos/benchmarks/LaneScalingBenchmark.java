@@ -0,0 +1,96 @@
+package com.syos.benchmarks;
+
+import com.syos.application.services.SalesService;
+import com.syos.domain.entities.Bill;
+import com.syos.infrastructure.persistence.connection.DatabaseConnectionPool;
+import com.syos.infrastructure.persistence.gateways.BillGateway;
+import com.syos.infrastructure.persistence.gateways.ItemGateway;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checkout throughput as the number of concurrent lanes grows.
+ * Each lane sells its own items, so lanes only contend in the application and in
+ * shared tables, never for the same stock rows. InnoDB's row lock waits show how
+ * much of that contention is on shared rows.
+ *
+ * Usage: LaneScalingBenchmark [salesPerLane=200] [linesPerSale=3] [maxLanes=16]
+ */
+public class LaneScalingBenchmark {
+    private static final int ITEMS_PER_LANE = 5;
+
+    public static void main(String[] args) throws Exception {
+        int salesPerLane = BenchmarkSupport.intArg(args, 0, 200);
+        int linesPerSale = BenchmarkSupport.intArg(args, 1, 3);
+        int maxLanes = BenchmarkSupport.intArg(args, 2, 16);
+
+        BenchmarkSupport.clearSalesAndItems();
+        for (int lane = 0; lane < maxLanes; lane++) {
+            BenchmarkSupport.insertItems("LANE" + lane + "I", ITEMS_PER_LANE, 1_000_000, "ON_SHELF");
+        }
+
+        DatabaseConnectionPool pool = DatabaseConnectionPool.getInstance();
+        SalesService salesService = new SalesService(new BillGateway(pool), new ItemGateway(pool));
+
+        // Warm up connections, statement caches and the JIT
+        runLanes(salesService, 1, salesPerLane, linesPerSale);
+
+        BenchmarkSupport.header(String.format("Checkout throughput (%d sales per lane, %d lines per sale)",
+                salesPerLane, linesPerSale));
+        System.out.printf("%5s %10s %12s %12s %12s %12s%n",
+                "Lanes", "Sales", "Elapsed ms", "Sales/s", "Lock waits", "Lock wait ms");
+        try (Connection status = BenchmarkSupport.connect()) {
+            for (int lanes = 1; lanes <= maxLanes; lanes *= 2) {
+                long waits = BenchmarkSupport.globalStatus(status, "Innodb_row_lock_waits");
+                long waitMillis = BenchmarkSupport.globalStatus(status, "Innodb_row_lock_time");
+                long start = System.nanoTime();
+                int sales = runLanes(salesService, lanes, salesPerLane, linesPerSale);
+                double elapsed = BenchmarkSupport.millisSince(start);
+                System.out.printf("%5d %10d %12.0f %12.0f %12d %12d%n", lanes, sales, elapsed,
+                        sales * 1000.0 / elapsed,
+                        BenchmarkSupport.globalStatus(status, "Innodb_row_lock_waits") - waits,
+                        BenchmarkSupport.globalStatus(status, "Innodb_row_lock_time") - waitMillis);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static int runLanes(SalesService salesService, int lanes, int salesPerLane, int linesPerSale)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(lanes, runnable -> {
+            Thread thread = new Thread(runnable, "lane");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int lane = 0; lane < lanes; lane++) {
+            String prefix = "LANE" + lane + "I";
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int sale = 0; sale < salesPerLane; sale++) {
+                    SalesService.SaleBuilder builder = salesService.startNewSale();
+                    for (int line = 0; line < linesPerSale; line++) {
+                        builder.addItem(prefix + ((sale + line) % ITEMS_PER_LANE), 1);
+                    }
+                    Bill bill = builder.completeSale(new BigDecimal("1000.00"));
+                    salesService.saveBill(bill);
+                }
+                return salesPerLane;
+            }));
+        }
+        start.countDown();
+        int sales = 0;
+        for (Future<Integer> result : results) {
+            sales += result.get();
+        }
+        executor.shutdown();
+        return sales;
+    }
+}
@@ -0,0 +1,185 @@
+package com.syos.benchmarks;
+
+import com.syos.domain.valueobjects.Money;
+import com.syos.domain.valueobjects.MoneyAccumulator;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Summing Money amounts with chained BigDecimal-backed Money.add/multiply calls
+ * against MoneyAccumulator's long cents. Needs no database.
+ *
+ * Before timing anything it checks that the accumulator returns exactly what the
+ * Money chain does: for amounts given with more than two decimals (rounded by
+ * Money), mixed signs, line totals, combined accumulators, and totals that
+ * overflow a long count of cents and carry on in BigDecimal. Any difference
+ * stops the run.
+ *
+ * Each timing is the median of the measured rounds, after warm-up rounds
+ * that let the JIT compile both loops.
+ *
+ * Usage: MoneySumBenchmark [amounts=1000000] [rounds=15] [warmupRounds=10]
+ */
+public class MoneySumBenchmark {
+    private static final long SEED = 42;
+    private static final int EQUIVALENCE_CHAINS = 10_000;
+
+    private static volatile Object sink; // Keeps the JIT from dropping the loops
+
+    public static void main(String[] args) {
+        int amounts = BenchmarkSupport.intArg(args, 0, 1_000_000);
+        int rounds = BenchmarkSupport.intArg(args, 1, 15);
+        int warmupRounds = BenchmarkSupport.intArg(args, 2, 10);
+
+        checkRounding();
+        checkOverflow();
+        System.out.println("MoneyAccumulator matches Money on " + EQUIVALENCE_CHAINS +
+                " random chains and every overflow case");
+
+        Random random = new Random(SEED);
+        Money[] prices = new Money[amounts];
+        int[] quantities = new int[amounts];
+        for (int i = 0; i < amounts; i++) {
+            prices[i] = Money.ofCents(1 + random.nextInt(100_000));
+            quantities[i] = 1 + random.nextInt(10);
+        }
+
+        Money[] totals = new Money[4];
+        BenchmarkSupport.header(String.format("Summing %,d amounts", amounts));
+        System.out.printf("%-34s %10s %10s%n", "", "median ms", "ns/amount");
+        measure("Money.add", amounts, rounds, warmupRounds, () -> {
+            Money total = Money.ofCents(0);
+            for (Money price : prices) {
+                total = total.add(price);
+            }
+            return totals[0] = total;
+        });
+        measure("MoneyAccumulator.add", amounts, rounds, warmupRounds, () -> {
+            MoneyAccumulator total = new MoneyAccumulator();
+            for (Money price : prices) {
+                total.add(price);
+            }
+            return totals[1] = total.toMoney();
+        });
+        measure("Money.multiply + add (lines)", amounts, rounds, warmupRounds, () -> {
+            Money total = Money.ofCents(0);
+            for (int i = 0; i < prices.length; i++) {
+                total = total.add(prices[i].multiply(quantities[i]));
+            }
+            return totals[2] = total;
+        });
+        measure("MoneyAccumulator.add(price, qty)", amounts, rounds, warmupRounds, () -> {
+            MoneyAccumulator total = new MoneyAccumulator();
+            for (int i = 0; i < prices.length; i++) {
+                total.add(prices[i], quantities[i]);
+            }
+            return totals[3] = total.toMoney();
+        });
+        expect("timed sums", totals[0], totals[1]);
+        expect("timed line sums", totals[2], totals[3]);
+    }
+
+    /**
+     * Random chains of adds, subtracts and line totals, with amounts of up to four
+     * decimals that Money rounds half up, both in one accumulator and in two combined
+     */
+    private static void checkRounding() {
+        Random random = new Random(SEED);
+        for (int chain = 0; chain < EQUIVALENCE_CHAINS; chain++) {
+            Money expected = Money.ofCents(0);
+            MoneyAccumulator whole = new MoneyAccumulator();
+            MoneyAccumulator firstHalf = new MoneyAccumulator();
+            MoneyAccumulator secondHalf = new MoneyAccumulator();
+            int steps = 1 + random.nextInt(50);
+            for (int step = 0; step < steps; step++) {
+                // Up to +-10,000.0000, so the third and fourth decimals are rounded by Money
+                Money amount = new Money(BigDecimal.valueOf(random.nextInt(200_000_001) - 100_000_000L, 4));
+                MoneyAccumulator half = step < steps / 2 ? firstHalf : secondHalf;
+                switch (random.nextInt(3)) {
+                    case 0:
+                        expected = expected.add(amount);
+                        whole.add(amount);
+                        half.add(amount);
+                        break;
+                    case 1:
+                        expected = expected.subtract(amount);
+                        whole.subtract(amount);
+                        half.subtract(amount);
+                        break;
+                    default:
+                        int quantity = random.nextInt(1000);
+                        expected = expected.add(amount.multiply(quantity));
+                        whole.add(amount, quantity);
+                        half.add(amount, quantity);
+                        break;
+                }
+            }
+            expect("chain " + chain, expected, whole.toMoney());
+            expect("combined chain " + chain, expected, firstHalf.add(secondHalf).toMoney());
+        }
+    }
+
+    /**
+     * Totals past a long count of cents, amounts that never fit in one, and the way back down
+     */
+    private static void checkOverflow() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+        Money min = Money.ofCents(Long.MIN_VALUE);
+        Money huge = new Money(new BigDecimal("123456789012345678901234567890.125"));
+
+        // Adds past Long.MAX_VALUE cents, then back below it
+        MoneyAccumulator total = new MoneyAccumulator().add(max).add(Money.ofCents(1)).add(max);
+        expect("sum past a long", max.add(Money.ofCents(1)).add(max), total.toMoney());
+        total.subtract(max).subtract(max);
+        expect("back below a long", Money.ofCents(1), total.toMoney());
+
+        // Subtracting Long.MIN_VALUE cents cannot be negated in a long
+        expect("subtract min", Money.ofCents(0).subtract(min), new MoneyAccumulator().subtract(min).toMoney());
+        expect("below a long", min.add(Money.ofCents(-1)),
+                new MoneyAccumulator().add(min).add(Money.ofCents(-1)).toMoney());
+
+        // A line total past a long, from a price that fits and from one that does not
+        expect("line past a long", Money.ofCents(Long.MAX_VALUE / 2).multiply(3),
+                new MoneyAccumulator().add(Money.ofCents(Long.MAX_VALUE / 2), 3).toMoney());
+        expect("huge line", huge.multiply(7).add(Money.ofCents(5)),
+                new MoneyAccumulator().add(huge, 7).add(Money.ofCents(5)).toMoney());
+        expect("huge subtract", Money.ofCents(0).subtract(huge), new MoneyAccumulator().subtract(huge).toMoney());
+
+        // Combining with an accumulator that has overflowed, either way round
+        MoneyAccumulator overflowed = new MoneyAccumulator().add(max).add(max);
+        Money overflowedTotal = max.add(max);
+        expect("combine into small", overflowedTotal.add(Money.ofCents(250)),
+                new MoneyAccumulator().addCents(250).add(overflowed).toMoney());
+        expect("combine small in", overflowedTotal.add(Money.ofCents(250)),
+                new MoneyAccumulator().add(max).add(max).add(new MoneyAccumulator().addCents(250)).toMoney());
+        expect("combined left unchanged", overflowedTotal, overflowed.toMoney());
+    }
+
+    private static void expect(String check, Money expected, Money actual) {
+        // Money.equals compares BigDecimals, so the scale has to match as well as the value
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException(check + ": accumulator gave " + actual + ", Money gave " + expected);
+        }
+    }
+
+    private static void measure(String name, int amounts, int rounds, int warmupRounds, Sum sum) {
+        for (int round = 0; round < warmupRounds; round++) {
+            sink = sum.run();
+        }
+        double[] millis = new double[rounds];
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            sink = sum.run();
+            millis[round] = BenchmarkSupport.millisSince(start);
+        }
+        Arrays.sort(millis);
+        double median = millis[rounds / 2];
+        System.out.printf("%-34s %10.1f %10.1f%n", name, median, median * 1_000_000 / amounts);
+    }
+
+    @FunctionalInterface
+    private interface Sum {
+        Money run();
+    }
+}
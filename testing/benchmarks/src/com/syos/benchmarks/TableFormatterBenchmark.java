@@ -0,0 +1,138 @@
+package com.syos.benchmarks;
+
+import com.syos.shared.utils.TableFormatter;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Rendering a large report body with String.format per row against
+ * TableFormatter, in StockReport's layout. Needs no database.
+ *
+ * Before timing anything it checks that both produce the same header and body,
+ * character for character, including names longer than their column, null
+ * names, negative quantities and missing expiry dates.
+ *
+ * Each timing is the median of the measured rounds, after warm-up rounds; the
+ * bytes allocated per body are read from the JVM when it reports them.
+ *
+ * Usage: TableFormatterBenchmark [rows=100000] [rounds=15] [warmupRounds=10]
+ */
+public class TableFormatterBenchmark {
+    private static final String ROW_FORMAT = "%-15s %-30s %10d %15s %15s%n";
+    private static final String HEADER_FORMAT = "%-15s %-30s %10s %15s %15s%n";
+    private static final TableFormatter TABLE = new TableFormatter.Builder()
+            .left("Code", 15)
+            .left("Name", 30)
+            .right("Quantity", 10)
+            .right("Purchase Date", 15)
+            .right("Expiry Date", 15)
+            .build();
+
+    private static volatile Object sink; // Keeps the JIT from dropping the loops
+
+    public static void main(String[] args) {
+        int rows = BenchmarkSupport.intArg(args, 0, 100_000);
+        int rounds = BenchmarkSupport.intArg(args, 1, 15);
+        int warmupRounds = BenchmarkSupport.intArg(args, 2, 10);
+
+        String[] codes = new String[rows];
+        String[] names = new String[rows];
+        int[] quantities = new int[rows];
+        LocalDate[] purchased = new LocalDate[rows];
+        Object[] expiries = new Object[rows];
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < rows; i++) {
+            codes[i] = "ITEM" + i;
+            if (i % 97 == 0) {
+                names[i] = null;
+            } else if (i % 10 == 0) {
+                names[i] = "Family size assorted biscuit selection tin " + i; // Wider than its column
+            } else {
+                names[i] = "Benchmark item " + i;
+            }
+            quantities[i] = i % 50 == 0 ? -i : i % 1000;
+            purchased[i] = today.minusDays(i % 90);
+            expiries[i] = i % 7 == 0 ? "N/A" : today.plusDays(i % 365);
+        }
+
+        Body withFormat = () -> {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format(HEADER_FORMAT, "Code", "Name", "Quantity", "Purchase Date", "Expiry Date"));
+            for (int i = 0; i < rows; i++) {
+                out.append(String.format(ROW_FORMAT, codes[i], names[i], quantities[i], purchased[i], expiries[i]));
+            }
+            return out.toString();
+        };
+        Body withTable = () -> {
+            StringBuilder out = new StringBuilder();
+            TABLE.appendHeader(out);
+            for (int i = 0; i < rows; i++) {
+                TABLE.row(out)
+                        .cell(codes[i])
+                        .cell(names[i])
+                        .cell(quantities[i])
+                        .cell(purchased[i])
+                        .cell(expiries[i])
+                        .end();
+            }
+            return out.toString();
+        };
+
+        check(withFormat.render(), withTable.render());
+        System.out.printf("TableFormatter matches String.format on all %,d rows%n", rows);
+
+        BenchmarkSupport.header(String.format("Rendering a %,d-row body", rows));
+        System.out.printf("%-16s %10s %10s %14s%n", "", "median ms", "ns/row", "MB allocated");
+        measure("String.format", rows, rounds, warmupRounds, withFormat);
+        measure("TableFormatter", rows, rounds, warmupRounds, withTable);
+    }
+
+    private static void check(String expected, String actual) {
+        if (expected.equals(actual)) {
+            return;
+        }
+        int at = 0;
+        while (at < Math.min(expected.length(), actual.length()) && expected.charAt(at) == actual.charAt(at)) {
+            at++;
+        }
+        int lineStart = expected.lastIndexOf('\n', at - 1) + 1;
+        throw new IllegalStateException("Output differs at character " + at + ", line starting: " +
+                expected.substring(lineStart, Math.min(expected.length(), lineStart + 100)).trim());
+    }
+
+    private static void measure(String name, int rows, int rounds, int warmupRounds, Body body) {
+        for (int round = 0; round < warmupRounds; round++) {
+            sink = body.render();
+        }
+        double[] millis = new double[rounds];
+        long allocated = 0;
+        for (int round = 0; round < rounds; round++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            sink = body.render();
+            millis[round] = BenchmarkSupport.millisSince(start);
+            allocated = allocatedBytes() - allocatedBefore;
+        }
+        Arrays.sort(millis);
+        double median = millis[rounds / 2];
+        System.out.printf("%-16s %10.1f %10.0f %14s%n", name, median, median * 1_000_000 / rows,
+                allocated >= 0 ? String.format("%.1f", allocated / 1e6) : "n/a");
+    }
+
+    /**
+     * @return Bytes this thread has allocated so far, or a negative number if the JVM does not say
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        String render();
+    }
+}